@@ -0,0 +1,177 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import static loa.Board.MAX_MOVES;
+import static loa.Piece.*;
+
+/** Micro-benchmarks for the board, evaluation, and search hot paths.
+ *  Each benchmark is run on a fixed corpus of opening, middlegame, and
+ *  endgame positions, first for some untimed warmup rounds (so that the
+ *  JIT compiler has settled) and then for timed measurement rounds,
+ *  reporting the mean and standard deviation of the time per operation.
+ *  Usage: java loa.Benchmarks [ NAME ... ], where each NAME selects the
+ *  benchmarks whose names contain it (all by default).
+ *  @author Israel Rodriguez
+ */
+class Benchmarks {
+
+    /** One operation to be timed on a given position. */
+    private interface Op {
+        /** Perform the operation once on BOARD, leaving BOARD as it was,
+         *  and return some value computed from the result (so that the
+         *  compiler cannot discard the work). */
+        long run(Board board);
+    }
+
+    /** The standard initial position. */
+    static final Piece[][] OPENING = Board.INITIAL_PIECES;
+
+    /** A position in the middle of a game. */
+    static final Piece[][] MIDDLEGAME = {
+        { EMP, BP,  EMP, BP,  BP,  EMP, EMP, EMP },
+        { WP,  EMP, EMP, EMP, EMP, EMP, EMP, WP  },
+        { WP,  EMP, EMP, EMP, BP,  BP,  EMP, WP  },
+        { WP,  EMP, BP,  EMP, EMP, WP,  EMP, EMP },
+        { WP,  EMP, WP,  WP,  EMP, WP,  EMP, EMP },
+        { WP,  EMP, EMP, EMP, BP,  EMP, EMP, WP  },
+        { EMP, EMP, EMP, EMP, EMP, EMP, EMP, EMP },
+        { EMP, BP,  BP,  BP,  EMP, BP,  BP,  EMP }
+    };
+
+    /** A position near the end of a game, with few pieces left. */
+    static final Piece[][] ENDGAME = {
+        { EMP, EMP, EMP, EMP, EMP, EMP, EMP, EMP },
+        { EMP, EMP, EMP, BP,  EMP, EMP, EMP, EMP },
+        { EMP, EMP, WP,  BP,  EMP, EMP, EMP, EMP },
+        { EMP, BP,  WP,  WP,  BP,  EMP, EMP, EMP },
+        { EMP, EMP, BP,  WP,  EMP, EMP, WP,  EMP },
+        { EMP, EMP, EMP, EMP, EMP, WP,  EMP, EMP },
+        { EMP, EMP, BP,  EMP, EMP, EMP, EMP, EMP },
+        { EMP, EMP, EMP, EMP, EMP, EMP, EMP, EMP }
+    };
+
+    /** Names of the corpus positions. */
+    static final String[] POSITION_NAMES = {
+        "opening", "middlegame", "endgame"
+    };
+
+    /** The corpus positions, in the same order as POSITION_NAMES. */
+    static final Piece[][][] POSITIONS = { OPENING, MIDDLEGAME, ENDGAME };
+
+    /** Number of untimed warmup rounds per benchmark and position. */
+    private static final int WARMUP_ROUNDS = 5;
+    /** Number of timed rounds per benchmark and position. */
+    private static final int MEASURED_ROUNDS = 10;
+    /** Approximate duration of each round, in nanoseconds. */
+    private static final long ROUND_NANOS = 100_000_000L;
+    /** Search depth for the findMove benchmark. */
+    private static final int SEARCH_DEPTH = 3;
+    /** Transposition table size for the findMove benchmark, in
+     *  megabytes.  The table is cleared before each search, so that
+     *  every search starts from scratch; keeping it small keeps the cost
+     *  of clearing it low. */
+    private static final int TABLE_SIZE = 1;
+
+    /** Run the benchmarks selected by ARGS (see the class comment). */
+    public static void main(String... args) {
+        int[] moves = new int[MAX_MOVES];
+        MachinePlayer.setTableSize(TABLE_SIZE);
+        MachinePlayer player = new MachinePlayer();
+
+        run(args, "legalMoves", b -> b.legalMoves(moves, 0));
+        run(args, "legalMovesList", b -> b.legalMoves().size());
+        run(args, "makeRetract", b -> {
+            int n = b.legalMoves(moves, 0);
+            for (int i = 0; i < n; i += 1) {
+                b.makeMove(moves[i]);
+                b.retract();
+            }
+            return n;
+        });
+        run(args, "regionSizes", b -> {
+            int n = b.legalMoves(moves, 0);
+            long sum = 0;
+            for (int i = 0; i < n; i += 1) {
+                b.makeMove(moves[i]);
+                sum += b.getRegionSizes(BP).size()
+                    + b.getRegionSizes(WP).size();
+                b.retract();
+            }
+            return sum;
+        });
+        run(args, "evaluate", b -> {
+            int n = b.legalMoves(moves, 0);
+            long sum = 0;
+            for (int i = 0; i < n; i += 1) {
+                b.makeMove(moves[i]);
+                sum += Evaluator.evaluate(b, b.turn());
+                b.retract();
+            }
+            return sum;
+        });
+        run(args, "findMove", b -> {
+            player.clearTable();
+            return player.searchForMove(b, SEARCH_DEPTH).pack();
+        });
+    }
+
+    /** Run benchmark NAME, timing OP on each corpus position, if it is
+     *  selected by SELECTORS. */
+    private static void run(String[] selectors, String name, Op op) {
+        if (!selected(selectors, name)) {
+            return;
+        }
+        for (int p = 0; p < POSITIONS.length; p += 1) {
+            Board board = new Board(POSITIONS[p], BP);
+            for (int r = 0; r < WARMUP_ROUNDS; r += 1) {
+                round(board, op);
+            }
+            double sum, sumSq;
+            sum = sumSq = 0.0;
+            for (int r = 0; r < MEASURED_ROUNDS; r += 1) {
+                double nanosPerOp = round(board, op);
+                sum += nanosPerOp;
+                sumSq += nanosPerOp * nanosPerOp;
+            }
+            double mean = sum / MEASURED_ROUNDS;
+            double dev =
+                Math.sqrt(Math.max(0.0, sumSq / MEASURED_ROUNDS - mean * mean));
+            System.out.printf("%-16s %-11s %14.1f ns/op  +- %.1f%n",
+                              name, POSITION_NAMES[p], mean, dev);
+        }
+    }
+
+    /** Run OP on BOARD repeatedly for about ROUND_NANOS, and return the
+     *  average time per operation in nanoseconds. */
+    private static double round(Board board, Op op) {
+        long ops = 0, result = 0;
+        long start = System.nanoTime(), elapsed;
+        do {
+            result += op.run(board);
+            ops += 1;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ROUND_NANOS);
+        _sink += result;
+        return (double) elapsed / ops;
+    }
+
+    /** Return true iff NAME contains one of SELECTORS, or there are
+     *  no SELECTORS. */
+    private static boolean selected(String[] selectors, String name) {
+        if (selectors.length == 0) {
+            return true;
+        }
+        for (String s : selectors) {
+            if (name.contains(s)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Accumulates benchmark results so that they are not optimized
+     *  away. */
+    private static volatile long _sink;
+
+}
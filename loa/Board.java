@@ -4,11 +4,9 @@ package loa;
 
 import java.util.List;
 import java.util.Formatter;
-import java.util.Collections;
 import java.util.Arrays;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Stack;
+import java.util.Random;
 import java.util.regex.Pattern;
 
 import static loa.Piece.*;
@@ -22,6 +20,9 @@ class Board {
     /** Default number of moves for each side that results in a draw. */
     static final int DEFAULT_MOVE_LIMIT = 60;
 
+    /** An upper bound on the number of legal moves in any position. */
+    static final int MAX_MOVES = 8 * NUM_SQUARES;
+
     /** Pattern describing a valid square designator (cr). */
     static final Pattern ROW_COL = Pattern.compile("^[a-h][1-8]$");
 
@@ -46,29 +47,32 @@ class Board {
     /** A Board whose initial contents and state are copied from
      *  BOARD. */
     Board(Board board) {
-        this();
         copyFrom(board);
     }
 
     /** Set my state to CONTENTS with SIDE to move. */
     void initialize(Piece[][] contents, Piece side) {
-        // FIXME
-        _turn = side;
+        _black = _white = 0L;
+        _key = 0L;
+        Arrays.fill(_lineCounts, 0);
+        Arrays.fill(_rowSums, 0);
+        Arrays.fill(_colSums, 0);
+        Arrays.fill(_centralization, 0);
+        for (int[] counts : _quadCounts) {
+            Arrays.fill(counts, 0);
+            counts[QUAD_OTHER] = NUM_QUADS;
+        }
+        _turn = null;
+        setTurn(side);
         _moveLimit = DEFAULT_MOVE_LIMIT;
         _winner = null;
-        flatten(contents);
-        computeRegions();
-    }
-
-    /** Helper function that flattens 2D array TWOD into BOARD. */
-    void flatten(Piece[][] twoD) {
-        int ind = 0;
-        for (int i = 0; i < twoD.length; i++) {
-            for (int j = 0; j < twoD[i].length; j++) {
-                _board[ind] = twoD[i][j];
-                ind++;
+        _winnerKnown = false;
+        for (int r = 0; r < BOARD_SIZE; r += 1) {
+            for (int c = 0; c < BOARD_SIZE; c += 1) {
+                put(sq(c, r).index(), contents[r][c]);
             }
         }
+        _undoSize = 0;
     }
 
     /** Set me to the initial configuration. */
@@ -81,35 +85,167 @@ class Board {
         if (board == this) {
             return;
         }
+        copyPosition(board);
+        _undoSize = 0;
+        ensureUndoCapacity(board._undoSize);
+        _undoSize = board._undoSize;
+        System.arraycopy(board._undoMoves, 0, _undoMoves, 0, _undoSize);
+        System.arraycopy(board._undoKeys, 0, _undoKeys, 0, _undoSize);
+        System.arraycopy(board._undoLimits, 0, _undoLimits, 0, _undoSize);
+        System.arraycopy(board._undoWinners, 0, _undoWinners, 0, _undoSize);
+    }
+
+    /** Set my position, side to move, and move limit to those of BOARD,
+     *  with no moves made.  This is cheaper than copyFrom, and is all a
+     *  search needs of the game's board. */
+    void copyPosition(Board board) {
         _turn = board._turn;
         _winner = board._winner;
         _moveLimit = board._moveLimit;
-        _subsetsInitialized = board._subsetsInitialized;
-        _movesMade = board._movesMade;
-        for (int i = 0; i < _board.length; i++) {
-            _board[i] = board._board[i];
+        _winnerKnown = board._winnerKnown;
+        _black = board._black;
+        _white = board._white;
+        _key = board._key;
+        System.arraycopy(board._lineCounts, 0, _lineCounts, 0,
+                         _lineCounts.length);
+        for (int s = 0; s < 2; s += 1) {
+            _rowSums[s] = board._rowSums[s];
+            _colSums[s] = board._colSums[s];
+            _centralization[s] = board._centralization[s];
+            System.arraycopy(board._quadCounts[s], 0, _quadCounts[s], 0,
+                             NUM_QUAD_TYPES);
         }
-        _moves.clear();
-        for (Move m : board._moves) {
-            _moves.push(m);
-        }
-        // FIXME
+        _undoSize = 0;
     }
 
     /** Return the contents of the square at SQ. */
     Piece get(Square sq) {
-        return _board[sq.index()];
+        return get(sq.index());
+    }
+
+    /** Return the contents of the square whose index is SQI. */
+    private Piece get(int sqi) {
+        long bit = 1L << sqi;
+        if ((_black & bit) != 0) {
+            return BP;
+        } else if ((_white & bit) != 0) {
+            return WP;
+        } else {
+            return EMP;
+        }
     }
 
     /** Set the square at SQ to V and set the side that is to move next
      *  to NEXT, if NEXT is not null. */
     void set(Square sq, Piece v, Piece next) {
-        _board[sq.index()] = v;
+        put(sq.index(), v);
         if (next != null) {
-            _turn = next;
+            setTurn(next);
+        }
+        _winnerKnown = false;
+    }
+
+    /** Place V on the square whose index is SQI, updating the
+     *  bitboards, line counts, Zobrist key, and evaluation features
+     *  only. */
+    private void put(int sqi, Piece v) {
+        Piece old = get(sqi);
+        if (old == v) {
+            return;
+        }
+        long bit = 1L << sqi;
+        int delta = (v == EMP ? 0 : 1) - (old == EMP ? 0 : 1);
+        _key ^= zobrist(old, sqi) ^ zobrist(v, sqi);
+        if (delta != 0) {
+            for (int line : LINE_INDEX[sqi]) {
+                _lineCounts[line] += delta;
+            }
+        }
+        long black = _black, white = _white;
+        _black &= ~bit;
+        _white &= ~bit;
+        if (v == BP) {
+            _black |= bit;
+        } else if (v == WP) {
+            _white |= bit;
+        }
+        if (old != EMP) {
+            updateFeatures(old, sqi, -1, old == BP ? black : white);
+        }
+        if (v != EMP) {
+            updateFeatures(v, sqi, 1, v == BP ? black : white);
         }
     }
 
+    /** Update the evaluation features of SIDE for the addition (SIGN ==
+     *  1) or removal (SIGN == -1) of its piece on the square with index
+     *  SQI, where BEFORE was the set of SIDE's pieces before the
+     *  change. */
+    private void updateFeatures(Piece side, int sqi, int sign, long before) {
+        int s = side.ordinal();
+        long after = own(side);
+        _rowSums[s] += sign * (sqi / BOARD_SIZE);
+        _colSums[s] += sign * (sqi % BOARD_SIZE);
+        _centralization[s] += sign * CENTRALIZATION[sqi];
+        int[] counts = _quadCounts[s];
+        for (int q : SQUARE_QUADS[sqi]) {
+            counts[quadType(before, q)] -= 1;
+            counts[quadType(after, q)] += 1;
+        }
+    }
+
+    /** Return the type (QUAD_ONE, QUAD_THREE, QUAD_DIAGONAL, or
+     *  QUAD_OTHER) of quad Q in the set of pieces PIECES. */
+    private static int quadType(long pieces, int q) {
+        long bits = pieces & QUAD_SQUARES[q];
+        switch (Long.bitCount(bits)) {
+        case 1:
+            return QUAD_ONE;
+        case 3:
+            return QUAD_THREE;
+        case 2:
+            long[] diagonals = QUAD_DIAGONALS[q];
+            if (bits == diagonals[0] || bits == diagonals[1]) {
+                return QUAD_DIAGONAL;
+            }
+            return QUAD_OTHER;
+        default:
+            return QUAD_OTHER;
+        }
+    }
+
+    /** Make SIDE the side to move, updating the Zobrist key. */
+    private void setTurn(Piece side) {
+        if (_turn == WP) {
+            _key ^= ZOBRIST_WHITE_TO_MOVE;
+        }
+        _turn = side;
+        if (_turn == WP) {
+            _key ^= ZOBRIST_WHITE_TO_MOVE;
+        }
+    }
+
+    /** Return the Zobrist key component for piece P on the square
+     *  whose index is SQI (0 for EMP). */
+    private static long zobrist(Piece p, int sqi) {
+        switch (p) {
+        case BP:
+            return ZOBRIST_PIECES[0][sqi];
+        case WP:
+            return ZOBRIST_PIECES[1][sqi];
+        default:
+            return 0L;
+        }
+    }
+
+    /** Return a 64-bit Zobrist hash of the current position, including
+     *  the side to move.  It is maintained incrementally by set,
+     *  makeMove, retract, and initialize, so equal positions always have
+     *  equal keys, and distinct positions almost never do. */
+    long zobristKey() {
+        return _key;
+    }
+
     /** Set the square at SQ to V, without modifying the side that
      *  moves next. */
     void set(Square sq, Piece v) {
@@ -123,51 +259,100 @@ class Board {
         _winnerKnown = false;
     }
 
-    /** Assuming isLegal(MOVE), make MOVE. This function assumes that
-     *  MOVE.isCapture() will return false.  If it saves the move for
-     *  later retraction, makeMove itself uses MOVE.captureMove() to produce
-     *  the capturing move. */
+    /** Assuming isLegal(MOVE), make MOVE.  The isCapture() property of
+     *  MOVE is ignored: whether it captures is recorded in the undo log
+     *  for later retraction. */
     void makeMove(Move move) {
         assert isLegal(move);
-        if (get(move.getTo()) == turn().opposite()) {
-            _moves.push(move.captureMove());
-            _movesMade.put(move.captureMove(), get(move.getTo()));
-        } else {
-            _moves.push(move);
-            _movesMade.put(move, get(move.getTo()));
-        }
-        set(move.getTo(), get(move.getFrom()));
-        set(move.getFrom(), EMP, turn().opposite());
-        _moveLimit--;
+        makeMove(move.pack());
+    }
+
+    /** Make the packed move MOVE (see Move.pack) without checking that it
+     *  is legal.  Its capture flag is ignored.  This is the fast path for
+     *  search: it allocates nothing, and leaves the winner and region
+     *  sizes to be computed only if asked for. */
+    void makeMove(int move) {
+        int from = Move.fromIndex(move), to = Move.toIndex(move);
+        Piece mover = turn();
+        ensureUndoCapacity(_undoSize + 1);
+        int k = _undoSize;
+        _undoMoves[k] = Move.pack(from, to,
+                                  ((_black | _white) & (1L << to)) != 0);
+        _undoKeys[k] = _key;
+        _undoLimits[k] = _moveLimit;
+        _undoWinners[k] = winnerCode();
+        _undoSize += 1;
+        put(to, mover);
+        put(from, EMP);
+        setTurn(mover.opposite());
+        _moveLimit -= 1;
         _winnerKnown = false;
-        _subsetsInitialized = false;
-        computeRegions();
+    }
 
+    /** Pass: give the move to the other side without moving any piece.
+     *  This is not a legal move; searches use it to find out how strong
+     *  the position of the side that passes is.  It may be undone with
+     *  retract, and counts as a move for movesMade, but not for the move
+     *  limit.  Assumes the game is not over. */
+    void makeNullMove() {
+        ensureUndoCapacity(_undoSize + 1);
+        int k = _undoSize;
+        _undoMoves[k] = Move.NO_MOVE;
+        _undoKeys[k] = _key;
+        _undoLimits[k] = _moveLimit;
+        _undoWinners[k] = winnerCode();
+        _undoSize += 1;
+        setTurn(turn().opposite());
+        _winnerKnown = false;
     }
 
     /** Retract (unmake) one move, returning to the state immediately before
-     *  that move.  Requires that movesMade () > 0. */
+     *  that move.  Requires that movesMade () > 0.  If squares have been
+     *  changed by set since the move, only the move itself is undone, and
+     *  the winner saved with it is not restored. */
     void retract() {
         assert movesMade() > 0;
-        // FIXME
-        Move prev = _moves.pop();
-        Piece last = _movesMade.get(prev);
-        set(prev.getFrom(), get(prev.getTo()));
-        set(prev.getTo(), last, turn().opposite());
-        /** if (!prev.isCapture()) {
-         set(prev.getFrom(), get(prev.getTo()));
-         set(prev.getTo(), EMP, turn().opposite());
-         } else {
-         Piece last = _movesMade.get(prev);
-         set(prev.getFrom(), get(prev.getTo()));
-         set(prev.getTo(), last, turn().opposite());
-         } */
-        _turn = turn().opposite();
-        _movesMade.remove(prev);
-        _winnerKnown = false;
-        _moveLimit++;
-        _subsetsInitialized = false;
-        computeRegions();
+        _undoSize -= 1;
+        int k = _undoSize;
+        Piece mover = turn().opposite();
+        if (_undoMoves[k] != Move.NO_MOVE) {
+            int from = Move.fromIndex(_undoMoves[k]),
+                to = Move.toIndex(_undoMoves[k]);
+            put(from, mover);
+            put(to, Move.isCapture(_undoMoves[k]) ? turn() : EMP);
+        }
+        setTurn(mover);
+        _moveLimit = _undoLimits[k];
+        if (_key == _undoKeys[k]) {
+            _winnerKnown = _undoWinners[k] != WINNER_UNKNOWN;
+            _winner = _undoWinners[k] >= 0 ? PIECES[_undoWinners[k]] : null;
+        } else {
+            _winnerKnown = false;
+        }
+    }
+
+    /** Return the code recorded in _undoWinners for the current state of
+     *  _winnerKnown and _winner. */
+    private byte winnerCode() {
+        if (!_winnerKnown) {
+            return WINNER_UNKNOWN;
+        } else if (_winner == null) {
+            return NO_WINNER;
+        } else {
+            return (byte) _winner.ordinal();
+        }
+    }
+
+    /** Make sure the undo log has room for at least SIZE entries. */
+    private void ensureUndoCapacity(int size) {
+        if (size <= _undoMoves.length) {
+            return;
+        }
+        int capacity = Math.max(size, 2 * _undoMoves.length);
+        _undoMoves = Arrays.copyOf(_undoMoves, capacity);
+        _undoKeys = Arrays.copyOf(_undoKeys, capacity);
+        _undoLimits = Arrays.copyOf(_undoLimits, capacity);
+        _undoWinners = Arrays.copyOf(_undoWinners, capacity);
     }
 
     /** Return the Piece representing who is currently supposed to move. */
@@ -178,21 +363,16 @@ class Board {
     /** Return true iff FROM - TO is a legal move for the player currently on
      *  move. */
     boolean isLegal(Square from, Square to) {
-        if (!exists(to.col(), to.row()) ||
-        !exists(from.col(), from.row())) {
+        if (from == null || to == null || !from.isValidMove(to)) {
             return false;
         }
-        if (from.distance(to) != piecesInLine(from, to)) {
-            return false;
-        }
-        if (_board[from.index()] != turn()) {
+        if ((own(turn()) & (1L << from.index())) == 0) {
             return false;
         }
-        if (blocked(from, to)) {
+        if (from.distance(to) != piecesInLine(from, to)) {
             return false;
-        } else {
-            return true;
         }
+        return !blocked(from, to);
     }
 
     /** Return true iff MOVE is legal for the player currently on move.
@@ -206,28 +386,68 @@ class Board {
 
     /** Return a sequence of all legal moves from this position. */
     List<Move> legalMoves() {
-        ArrayList<Move> legal = new ArrayList<>();
-        for (Square s : ALL_SQUARES) {
-            if (get(s) == EMP) {
-                continue;
-            }
-            if (get(s) == turn()) {
-                for (int a = 0; a < 4; a++) {
-                    Square adj = s.moveDest(a, 1);
-                    if (adj == null) {
+        int n = legalMoves(_moveBuffer, 0);
+        ArrayList<Move> legal = new ArrayList<>(n);
+        for (int i = 0; i < n; i += 1) {
+            legal.add(Move.mv(Move.squares(_moveBuffer[i])));
+        }
+        return legal;
+    }
+
+    /** Store the legal moves from this position in MOVES, starting at
+     *  index START, in the packed form produced by Move.pack (with the
+     *  capture flag set on captures), and return the number of moves
+     *  stored.  MOVES must have room for MAX_MOVES
+     *  moves after START.  Allocates nothing. */
+    int legalMoves(int[] moves, int start) {
+        return generateMoves(moves, start, false);
+    }
+
+    /** Store the legal moves from this position that capture or that
+     *  leave the pieces of the side to move contiguous in MOVES, as for
+     *  legalMoves(MOVES, START), and return their number.  These are the
+     *  moves that can change the outcome of the game at once. */
+    int tacticalMoves(int[] moves, int start) {
+        return generateMoves(moves, start, true);
+    }
+
+    /** Store the legal moves from this position in MOVES, starting at
+     *  index START, as for legalMoves(MOVES, START), but only those that
+     *  capture or connect the mover's pieces if TACTICAL, and return the
+     *  number of moves stored. */
+    private int generateMoves(int[] moves, int start, boolean tactical) {
+        long mine = own(turn()), theirs = own(turn().opposite());
+        int n = start;
+        for (long rest = mine; rest != 0; rest &= rest - 1) {
+            int from = Long.numberOfTrailingZeros(rest);
+            long others = mine & ~(1L << from);
+            int[] lines = LINE_INDEX[from];
+            int[][] dests = DESTINATIONS[from];
+            for (int dir = 0; dir < 8; dir += 1) {
+                int to = dests[dir][_lineCounts[lines[dir & 3]]];
+                if (to >= 0 && (mine & (1L << to)) == 0
+                    && (BETWEEN[from][to] & theirs) == 0) {
+                    boolean capture = (theirs & (1L << to)) != 0;
+                    if (tactical && !capture
+                        && !connects(others, 1L << to)) {
                         continue;
                     }
-                    SqList possibilities = lineOfSquares(s, adj);
-                    for (Square p : possibilities) {
-                        Move m = Move.mv(s, p);
-                        if (isLegal(m)) {
-                            legal.add(m);
-                        }
-                    }
+                    moves[n] = Move.pack(from, to, capture);
+                    n += 1;
                 }
             }
         }
-        return legal;
+        return n - start;
+    }
+
+    /** Return true iff the pieces OTHERS together with the piece PIECE
+     *  (a single bit) are contiguous. */
+    private static boolean connects(long others, long piece) {
+        if ((neighborhood(piece) & others) == 0) {
+            return others == 0;
+        }
+        long pieces = others | piece;
+        return cluster(piece, pieces) == pieces;
     }
 
     /** Return true iff the game is over (either player has all his
@@ -236,26 +456,31 @@ class Board {
         return winner() != null;
     }
 
-    /** Return true iff SIDE's pieces are continguous. */
+    /** Return true iff SIDE's pieces are continguous.  A side with no
+     *  pieces is not. */
     boolean piecesContiguous(Piece side) {
-        return getRegionSizes(side).size() == 1;
+        if (eulerNumber(side) > 1) {
+            return false;
+        }
+        long pieces = own(side);
+        return pieces != 0 && cluster(pieces & -pieces, pieces) == pieces;
     }
 
     /** Return the winning side, if any.  If the game is not over, result is
-     *  null.  If the game has ended in a tie, returns EMP. */
+     *  null.  If the game has ended in a tie, returns EMP.  When a move
+     *  leaves both sides contiguous, the side that made it wins. */
     Piece winner() {
         if (!_winnerKnown) {
-            if (_moveLimit == 0) {
-                _winner = EMP;
-                _winnerKnown = true;
-            }
-            else if (piecesContiguous(turn())) {
+            if (piecesContiguous(turn().opposite())) {
+                _winner = turn().opposite();
+            } else if (piecesContiguous(turn())) {
                 _winner = turn();
-                _winnerKnown = true;
+            } else if (_moveLimit <= 0) {
+                _winner = EMP;
             } else {
                 _winner = null;
-                _winnerKnown = false;
             }
+            _winnerKnown = true;
         }
         return _winner;
     }
@@ -264,7 +489,7 @@ class Board {
      *  retracted).  Each valid call to makeMove with a normal move increases
      *  this number by 1. */
     int movesMade() {
-        return _moves.size();
+        return _undoSize;
     }
 
     /** Returns an array containing the squares between
@@ -315,25 +540,22 @@ class Board {
     /** Returns the number of pieces found in both the path between FROM
      * and TO, and the path between FROM and the square opposite from TO. */
     public int piecesInLine(Square from, Square to) {
-        SqList line = lineOfSquares(from, to);
-        int pieces = 0;
-        for (Square sq : line) {
-            if (_board[sq.index()] != EMP) {
-                pieces++;
-            }
-        }
-        return pieces;
+        return _lineCounts[LINE_INDEX[from.index()][from.direction(to) & 3]];
     }
 
     @Override
     public boolean equals(Object obj) {
+        if (!(obj instanceof Board)) {
+            return false;
+        }
         Board b = (Board) obj;
-        return Arrays.deepEquals(_board, b._board) && _turn == b._turn;
+        return _key == b._key && _black == b._black && _white == b._white
+            && _turn == b._turn;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(_board) * 2 + _turn.hashCode();
+        return Long.hashCode(_key);
     }
 
     @Override
@@ -351,19 +573,26 @@ class Board {
         return out.toString();
     }
 
+    /** Return the Kth move made (0 <= K < movesMade()), packed and flagged
+     *  if it was a capture, or Move.NO_MOVE if it was a null move. */
+    int moveMade(int k) {
+        assert 0 <= k && k < _undoSize;
+        return _undoMoves[k];
+    }
+
     /** Return true if a move from FROM to TO is blocked by an opposing
      *  piece or by a friendly piece on the target square. */
     private boolean blocked(Square from, Square to) {
-        Square[] path = path(from, to);
-        if (_board[to.index()] == turn()) {
+        if ((own(turn()) & (1L << to.index())) != 0) {
             return true;
         }
-        for (int i = 1; i < path.length - 1; i++) {
-            if (_board[path[i].index()] == turn().opposite()) {
-                return true;
-            }
-        }
-        return false;
+        long between = BETWEEN[from.index()][to.index()];
+        return (own(turn().opposite()) & between) != 0;
+    }
+
+    /** Return the bitboard of SIDE's pieces (BP or WP). */
+    private long own(Piece side) {
+        return side == BP ? _black : _white;
     }
 
     /** Return the size of the as-yet unvisited cluster of squares
@@ -371,61 +600,249 @@ class Board {
      *  have already been processed or are in different clusters.  Update
      *  VISITED to reflect squares counted. */
     public int numContig(Square sq, boolean[][] visited, Piece p) {
-        Square[] adj = sq.adjacent();
-        if (p == EMP) {
-            return  0;
-        }
-        if (get(sq) != p) {
+        if (p == EMP || get(sq) != p || visited[sq.col()][sq.row()]) {
             return 0;
         }
-        if (visited[sq.col()][sq.row()]) {
-            return 0;
+        long unvisited = own(p);
+        for (Square s : ALL_SQUARES) {
+            if (visited[s.col()][s.row()]) {
+                unvisited &= ~(1L << s.index());
+            }
         }
-        visited[sq.col()][sq.row()] = true;
-        int total = 1;
-        for (Square s : adj) {
-            total += numContig(s, visited, p);
+        long region = cluster(1L << sq.index(), unvisited);
+        for (long r = region; r != 0; r &= r - 1) {
+            Square s = ALL_SQUARES[Long.numberOfTrailingZeros(r)];
+            visited[s.col()][s.row()] = true;
         }
-        return total;
+        return Long.bitCount(region);
     }
 
-    /** Set the values of _whiteRegionSizes and _blackRegionSizes. */
-    private void computeRegions() {
-        if (_subsetsInitialized) {
-            return;
+    /** Return the squares of PIECES that are connected to SEED through
+     *  chains of adjacent squares in PIECES. */
+    static long cluster(long seed, long pieces) {
+        long region = seed & pieces;
+        while (true) {
+            long grown = neighborhood(region) & pieces;
+            if (grown == region) {
+                return region;
+            }
+            region = grown;
         }
-        boolean[][] visited = new boolean[BOARD_SIZE][BOARD_SIZE];
-        _whiteRegionSizes.clear();
-        _blackRegionSizes.clear();
+    }
 
-        for (Square s : ALL_SQUARES) {
-            if (get(s) == BP) {
-                int bsize = numContig(s, visited, BP);
-                if (bsize != 0) {
-                    _blackRegionSizes.add(bsize);
-                }
+    /** Return the squares in BITS together with all squares adjacent
+     *  to them. */
+    static long neighborhood(long bits) {
+        long row = bits | ((bits << 1) & ~FILE_A) | ((bits >>> 1) & ~FILE_H);
+        return row | (row << BOARD_SIZE) | (row >>> BOARD_SIZE);
+    }
+
+    /** Return the region summary for side S's current pieces.  Each side
+     *  keeps summaries for its two most recent sets of pieces, and
+     *  recomputes one only when asked about a set of pieces that neither
+     *  describes.  So after makeMove only the sides whose pieces changed
+     *  are recomputed, and after the matching retract the summary from
+     *  before the move is found in the other slot without recomputing. */
+    private Regions regions(Piece s) {
+        int k = s == WP ? 1 : 0;
+        long pieces = own(s);
+        Regions current = _regions[k][0];
+        if (current.pieces() != pieces) {
+            Regions previous = _regions[k][1];
+            _regions[k][0] = previous;
+            _regions[k][1] = current;
+            if (previous.pieces() != pieces) {
+                previous.compute(pieces);
             }
-            if (get(s) == WP) {
-                int wsize = numContig(s, visited, WP);
-                if (wsize != 0) {
-                    _whiteRegionSizes.add(wsize);
+            current = previous;
+        }
+        return current;
+    }
+
+    /** Return the number of contiguous regions of side S's pieces. */
+    int regionCount(Piece s) {
+        return regions(s).count();
+    }
+
+    /** Return the number of pieces in side S's largest region. */
+    int largestRegion(Piece s) {
+        return regions(s).largest();
+    }
+
+    /* The following features of the position are used by the evaluation
+     * function (see Evaluator).  The piece counts, centralization sums,
+     * quad counts (and so Euler numbers), and the row and column sums
+     * that locate each side's center of mass are kept up to date as
+     * pieces are placed and removed.  The others are computed when
+     * asked for: concentration on every call, and mobility and walled
+     * pieces by a scan of the moves (see scanMoves) whose result is
+     * saved until the pieces change. */
+
+    /** Return the number of side S's pieces. */
+    int pieceCount(Piece s) {
+        return Long.bitCount(own(s));
+    }
+
+    /** Return the sum, over side S's pieces, of the distance (in king
+     *  moves) from the piece to S's center of mass, less the least such
+     *  sum possible for that many pieces: 0 when S's pieces are packed
+     *  as tightly as possible.  The center of mass is found from the
+     *  row and column sums, but the distances are summed anew on each
+     *  call. */
+    int concentration(Piece s) {
+        long pieces = own(s);
+        int n = Long.bitCount(pieces);
+        if (n == 0) {
+            return 0;
+        }
+        int i = s.ordinal();
+        int row = (2 * _rowSums[i] + n) / (2 * n),
+            col = (2 * _colSums[i] + n) / (2 * n);
+        int sum = 0;
+        for (; pieces != 0; pieces &= pieces - 1) {
+            int sqi = Long.numberOfTrailingZeros(pieces);
+            sum += Math.max(Math.abs(sqi / BOARD_SIZE - row),
+                            Math.abs(sqi % BOARD_SIZE - col));
+        }
+        return sum - MIN_DISTANCE_SUMS[n];
+    }
+
+    /** Return the sum of CENTRALIZATION over side S's pieces. */
+    int centralization(Piece s) {
+        return _centralization[s.ordinal()];
+    }
+
+    /** Return the number of quads (the 2x2 blocks of squares, including
+     *  those that hang over the edge of the board) whose arrangement of
+     *  side S's pieces is of TYPE: QUAD_ONE (one piece), QUAD_THREE (three
+     *  pieces), or QUAD_DIAGONAL (two pieces, diagonally adjacent). */
+    int quadCount(Piece s, int type) {
+        return _quadCounts[s.ordinal()][type];
+    }
+
+    /** Return the Euler number of side S's pieces, taking diagonally
+     *  adjacent pieces as connected: the number of regions less the
+     *  number of holes (regions of other squares enclosed by S's pieces).
+     *  It is computed from the quad counts (by Gray's formula), and so
+     *  costs nothing to maintain beyond them.  Since the number of holes
+     *  is never negative, S's pieces are not contiguous if it exceeds 1. */
+    int eulerNumber(Piece s) {
+        int[] counts = _quadCounts[s.ordinal()];
+        return (counts[QUAD_ONE] - counts[QUAD_THREE]
+                - 2 * counts[QUAD_DIAGONAL]) / 4;
+    }
+
+    /** Return the mobility of side S: the number of moves S could make
+     *  if it were S's turn, with moves to squares off the edge of the
+     *  board counting double. */
+    int mobility(Piece s) {
+        return scanMoves(s)[MOBILITY_INDEX];
+    }
+
+    /** Return the number of side S's pieces on the edge of the board that
+     *  are walled in: that cannot move off the edge. */
+    int walledPieces(Piece s) {
+        return scanMoves(s)[WALLED_INDEX];
+    }
+
+    /** Return side S's mobility and number of walled pieces (at
+     *  MOBILITY_INDEX and WALLED_INDEX), computing them if the pieces
+     *  have changed since they were last computed. */
+    private int[] scanMoves(Piece s) {
+        int k = s.ordinal();
+        int[] result = _moveScans[k];
+        long[] pieces = _moveScanPieces[k];
+        if (pieces[0] == _black && pieces[1] == _white) {
+            return result;
+        }
+        pieces[0] = _black;
+        pieces[1] = _white;
+        long mine = own(s), theirs = own(s.opposite());
+        int mobility, walled;
+        mobility = walled = 0;
+        for (long rest = mine; rest != 0; rest &= rest - 1) {
+            int from = Long.numberOfTrailingZeros(rest);
+            int[] lines = LINE_INDEX[from];
+            int[][] dests = DESTINATIONS[from];
+            boolean leavesEdge = false;
+            for (int dir = 0; dir < 8; dir += 1) {
+                int to = dests[dir][_lineCounts[lines[dir & 3]]];
+                if (to >= 0 && (mine & (1L << to)) == 0
+                    && (BETWEEN[from][to] & theirs) == 0) {
+                    if ((EDGES & (1L << to)) == 0) {
+                        mobility += 2;
+                        leavesEdge = true;
+                    } else {
+                        mobility += 1;
+                    }
                 }
             }
+            if (!leavesEdge && (EDGES & (1L << from)) != 0) {
+                walled += 1;
+            }
         }
-        Collections.sort(_whiteRegionSizes, Collections.reverseOrder());
-        Collections.sort(_blackRegionSizes, Collections.reverseOrder());
-        _subsetsInitialized = true;
+        result[MOBILITY_INDEX] = mobility;
+        result[WALLED_INDEX] = walled;
+        return result;
     }
 
     /** Return the sizes of all the regions in the current union-find
-     *  structure for side S. */
+     *  structure for side S, largest first. */
     List<Integer> getRegionSizes(Piece s) {
-        computeRegions();
-        if (s == WP) {
-            return _whiteRegionSizes;
-        } else {
-            return _blackRegionSizes;
+        Regions regions = regions(s);
+        ArrayList<Integer> sizes = new ArrayList<>(regions.count());
+        for (int i = 0; i < regions.count(); i += 1) {
+            sizes.add(regions.size(i));
         }
+        return sizes;
+    }
+
+    /** The sizes of the contiguous regions of one set of pieces. */
+    private static class Regions {
+
+        /** Set me to describe PIECES. */
+        void compute(long pieces) {
+            _pieces = pieces;
+            _count = 0;
+            while (pieces != 0) {
+                long region = cluster(pieces & -pieces, pieces);
+                int size = Long.bitCount(region);
+                int i;
+                for (i = _count; i > 0 && _sizes[i - 1] < size; i -= 1) {
+                    _sizes[i] = _sizes[i - 1];
+                }
+                _sizes[i] = size;
+                _count += 1;
+                pieces &= ~region;
+            }
+        }
+
+        /** Return the set of pieces I describe. */
+        long pieces() {
+            return _pieces;
+        }
+
+        /** Return the number of regions. */
+        int count() {
+            return _count;
+        }
+
+        /** Return the size of the largest region (0 if none). */
+        int largest() {
+            return _count == 0 ? 0 : _sizes[0];
+        }
+
+        /** Return the size of the Kth largest region. */
+        int size(int k) {
+            return _sizes[k];
+        }
+
+        /** The pieces I describe. */
+        private long _pieces;
+        /** Number of regions in _pieces. */
+        private int _count;
+        /** Region sizes, in non-increasing order. */
+        private final int[] _sizes = new int[NUM_SQUARES];
     }
 
 
@@ -443,10 +860,201 @@ class Board {
         { EMP, BP,  BP,  BP,  BP,  BP,  BP,  EMP }
     };
 
-    /** Current contents of the board.  Square S is at _board[S.index()]. */
-    private final Piece[] _board = new Piece[BOARD_SIZE  * BOARD_SIZE];
-    /** List of all unretracted moves on this board, in order. */
-    private final Stack<Move> _moves = new Stack<>();
+    /** Squares in column a and column h, respectively. */
+    private static final long
+        FILE_A = 0x0101010101010101L,
+        FILE_H = 0x8080808080808080L;
+
+    /** Squares on the edge of the board. */
+    private static final long EDGES = 0xff818181818181ffL;
+
+    /** Types of quad, as counted by quadCount.  QUAD_OTHER covers quads
+     *  with no pieces, four pieces, or two adjacent pieces. */
+    static final int
+        QUAD_OTHER = 0, QUAD_ONE = 1, QUAD_THREE = 2, QUAD_DIAGONAL = 3;
+    /** Number of types of quad. */
+    private static final int NUM_QUAD_TYPES = 4;
+
+    /** Number of quads.  Quad R * (BOARD_SIZE + 1) + C covers rows R - 1
+     *  and R and columns C - 1 and C (0 <= R, C <= BOARD_SIZE), so that
+     *  quads along the edges hang over the edge of the board. */
+    private static final int NUM_QUADS = (BOARD_SIZE + 1) * (BOARD_SIZE + 1);
+
+    /** QUAD_SQUARES[Q] is the set of squares in quad Q. */
+    private static final long[] QUAD_SQUARES = new long[NUM_QUADS];
+
+    /** QUAD_DIAGONALS[Q] contains the two sets of two diagonally adjacent
+     *  squares in quad Q, with 0 for those that hang over the edge. */
+    private static final long[][] QUAD_DIAGONALS = new long[NUM_QUADS][2];
+
+    /** SQUARE_QUADS[S] contains the four quads containing the square with
+     *  index S. */
+    private static final int[][] SQUARE_QUADS = new int[NUM_SQUARES][4];
+
+    /** CENTRALIZATION[S] measures how near the square with index S is to
+     *  the center of the board: 0 in the corners, up to 6 in the middle
+     *  four squares. */
+    private static final int[] CENTRALIZATION = new int[NUM_SQUARES];
+
+    /** MIN_DISTANCE_SUMS[N] is the least possible sum of the distances (in
+     *  king moves) from N pieces to any one square. */
+    private static final int[] MIN_DISTANCE_SUMS = new int[NUM_SQUARES + 1];
+
+    static {
+        int size = BOARD_SIZE + 1;
+        for (int r = 0; r < size; r += 1) {
+            for (int c = 0; c < size; c += 1) {
+                int q = r * size + c;
+                long lowLeft = squareBit(r - 1, c - 1),
+                    lowRight = squareBit(r - 1, c),
+                    highLeft = squareBit(r, c - 1),
+                    highRight = squareBit(r, c);
+                QUAD_SQUARES[q] = lowLeft | lowRight | highLeft | highRight;
+                if (lowLeft != 0 && highRight != 0) {
+                    QUAD_DIAGONALS[q][0] = lowLeft | highRight;
+                }
+                if (lowRight != 0 && highLeft != 0) {
+                    QUAD_DIAGONALS[q][1] = lowRight | highLeft;
+                }
+            }
+        }
+        for (int sqi = 0; sqi < NUM_SQUARES; sqi += 1) {
+            int r = sqi / BOARD_SIZE, c = sqi % BOARD_SIZE;
+            SQUARE_QUADS[sqi] = new int[] {
+                r * size + c, r * size + c + 1,
+                (r + 1) * size + c, (r + 1) * size + c + 1
+            };
+            CENTRALIZATION[sqi] = (BOARD_SIZE - 1 - Math.abs(2 * r - 7)) / 2
+                + (BOARD_SIZE - 1 - Math.abs(2 * c - 7)) / 2;
+        }
+        for (int n = 1, dist = 0, ring = 1; n <= NUM_SQUARES; n += 1) {
+            MIN_DISTANCE_SUMS[n] = MIN_DISTANCE_SUMS[n - 1] + dist;
+            ring -= 1;
+            if (ring == 0) {
+                dist += 1;
+                ring = 8 * dist;
+            }
+        }
+    }
+
+    /** Return the set containing just the square at row R and column C,
+     *  or 0 if there is no such square. */
+    private static long squareBit(int r, int c) {
+        if (r < 0 || r >= BOARD_SIZE || c < 0 || c >= BOARD_SIZE) {
+            return 0L;
+        }
+        return 1L << (r * BOARD_SIZE + c);
+    }
+
+    /** Number of lines of action: 8 columns, 15 diagonals, 8 rows, and 15
+     *  anti-diagonals. */
+    private static final int NUM_LINES = 4 * BOARD_SIZE + 2 * (BOARD_SIZE - 1);
+
+    /** LINE_INDEX[S][D] is the index in _lineCounts of the line through
+     *  the square with index S in direction D (0 <= D < 4) and its
+     *  opposite. */
+    private static final int[][] LINE_INDEX = new int[NUM_SQUARES][4];
+
+    /** BETWEEN[F][T] is the set of squares strictly between the squares
+     *  with indices F and T, or 0 if they are not on a common line. */
+    private static final long[][] BETWEEN = new long[NUM_SQUARES][NUM_SQUARES];
+
+    /** DESTINATIONS[S][D][K] is the index of the square K squares from
+     *  the square with index S in direction D, or -1 if there is none. */
+    private static final int[][][] DESTINATIONS =
+        new int[NUM_SQUARES][8][BOARD_SIZE + 1];
+
+    static {
+        for (Square from : ALL_SQUARES) {
+            int f = from.index();
+            for (int dir = 0; dir < 8; dir += 1) {
+                for (int k = 0; k <= BOARD_SIZE; k += 1) {
+                    Square to = from.moveDest(dir, k);
+                    DESTINATIONS[f][dir][k] = to == null ? -1 : to.index();
+                }
+                long path = 0;
+                for (Square to = from.moveDest(dir, 1); to != null;
+                     to = to.moveDest(dir, 1)) {
+                    BETWEEN[f][to.index()] = path;
+                    path |= 1L << to.index();
+                }
+            }
+            int c = from.col(), r = from.row();
+            LINE_INDEX[f][0] = c;
+            LINE_INDEX[f][1] = BOARD_SIZE + c - r + BOARD_SIZE - 1;
+            LINE_INDEX[f][2] = 3 * BOARD_SIZE - 1 + r;
+            LINE_INDEX[f][3] = 4 * BOARD_SIZE - 1 + c + r;
+        }
+    }
+
+    /** Random keys for a black (ZOBRIST_PIECES[0]) or white
+     *  (ZOBRIST_PIECES[1]) piece on each square, and for white being on
+     *  move.  They are generated from a fixed seed so that keys are the
+     *  same in every run of the program. */
+    private static final long[][] ZOBRIST_PIECES = new long[2][NUM_SQUARES];
+    /** Zobrist key component for white to move. */
+    private static final long ZOBRIST_WHITE_TO_MOVE;
+
+    static {
+        Random keys = new Random(0x4c4f41L);
+        for (long[] side : ZOBRIST_PIECES) {
+            for (int i = 0; i < NUM_SQUARES; i += 1) {
+                side[i] = keys.nextLong();
+            }
+        }
+        ZOBRIST_WHITE_TO_MOVE = keys.nextLong();
+    }
+
+    /** Current contents of the board, as bitboards of the black and
+     *  white pieces.  Square S holds a black piece iff bit S.index() of
+     *  _black is set, and likewise for _white. */
+    private long _black, _white;
+    /** Zobrist key of the current position.  See zobristKey(). */
+    private long _key;
+    /** Number of pieces on each line of action, indexed as described for
+     *  LINE_INDEX. */
+    private final int[] _lineCounts = new int[NUM_LINES];
+    /** For each side (indexed by ordinal), the sums of the rows and of
+     *  the columns of its pieces, and of CENTRALIZATION over them. */
+    private final int[] _rowSums = new int[2], _colSums = new int[2],
+        _centralization = new int[2];
+    /** _quadCounts[S][T] is the number of quads of type T for the side
+     *  with ordinal S. */
+    private final int[][] _quadCounts = new int[2][NUM_QUAD_TYPES];
+    /** Indices of the results in _moveScans. */
+    private static final int MOBILITY_INDEX = 0, WALLED_INDEX = 1;
+    /** For each side (indexed by ordinal), its mobility and number of
+     *  walled pieces, as last computed by scanMoves, and the black and
+     *  white pieces for which they were computed.  (Initially, those
+     *  for an empty board.) */
+    private final int[][] _moveScans = new int[2][2];
+    /** See _moveScans. */
+    private final long[][] _moveScanPieces = new long[2][2];
+    /** Scratch space for legalMoves(). */
+    private final int[] _moveBuffer = new int[MAX_MOVES];
+
+    /** All Pieces, indexed by ordinal. */
+    private static final Piece[] PIECES = Piece.values();
+    /** Codes in _undoWinners for an unknown winner and for a game that
+     *  is known to be in progress.  Other codes are Piece ordinals. */
+    private static final byte WINNER_UNKNOWN = -2, NO_WINNER = -1;
+    /** Initial capacity of the undo log. */
+    private static final int INITIAL_UNDO_CAPACITY = 2 * DEFAULT_MOVE_LIMIT;
+
+    /** Undo log of all unretracted moves, in order.  Entry K of each
+     *  array describes the state just before the Kth move: the move
+     *  itself (packed, flagged if it captured a piece, or NO_MOVE for a
+     *  null move), the Zobrist key, the move limit, and the cached winner
+     *  (see winnerCode). */
+    private int[] _undoMoves = new int[INITIAL_UNDO_CAPACITY];
+    /** See _undoMoves. */
+    private long[] _undoKeys = new long[INITIAL_UNDO_CAPACITY];
+    /** See _undoMoves. */
+    private int[] _undoLimits = new int[INITIAL_UNDO_CAPACITY];
+    /** See _undoMoves. */
+    private byte[] _undoWinners = new byte[INITIAL_UNDO_CAPACITY];
+    /** Number of entries in the undo log (= movesMade()). */
+    private int _undoSize;
     /** Current side on move. */
     private Piece _turn;
     /** Limit on number of moves before tie is declared.  */
@@ -456,13 +1064,9 @@ class Board {
     /** Cached value of the winner (BP, WP, EMP (for tie), or null (game still
      *  in progress).  Use only if _winnerKnown. */
     private Piece _winner;
-    /** True iff subsets computation is up-to-date. */
-    private boolean _subsetsInitialized;
-    /** HashMap containing moves already made and the type
-     * of piece found before the move was made. */
-    private HashMap<Move, Piece> _movesMade = new HashMap<>();
-    /** List of the sizes of continguous clusters of pieces, by color. */
-    private final ArrayList<Integer>
-        _whiteRegionSizes = new ArrayList<>(),
-        _blackRegionSizes = new ArrayList<>();
+    /** Region summaries for black (_regions[0]) and white (_regions[1]):
+     *  the current one first, then the previous one.  See regions(). */
+    private final Regions[][] _regions = {
+        { new Regions(), new Regions() }, { new Regions(), new Regions() }
+    };
 }
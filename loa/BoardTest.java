@@ -6,6 +6,7 @@ import org.junit.Test;
 
 import java.util.List;
 import java.util.Arrays;
+import java.util.Random;
 
 import static loa.Square.*;
 import static org.junit.Assert.*;
@@ -101,6 +102,34 @@ public class BoardTest {
         assertEquals(4, b.piecesInLine(s3, s5));
     }
 
+    /** Tests that line counts stay correct as moves are made and
+     *  retracted. */
+    @Test
+    public void lineCountsTest() {
+        Random random = new Random(4);
+        Board b = new Board(BOARD1, BP);
+        for (int k = 0; k < 30 && !b.gameOver(); k += 1) {
+            List<Move> moves = b.legalMoves();
+            b.makeMove(moves.get(random.nextInt(moves.size())));
+            if (k % 3 == 2) {
+                b.retract();
+            }
+            for (Square from : ALL_SQUARES) {
+                for (int dir = 0; dir < 4; dir += 1) {
+                    Square to = from.moveDest(dir, 1);
+                    if (to == null) {
+                        continue;
+                    }
+                    int count = 0;
+                    for (Square s : b.lineOfSquares(from, to)) {
+                        count += b.get(s) == EMP ? 0 : 1;
+                    }
+                    assertEquals(count, b.piecesInLine(from, to));
+                }
+            }
+        }
+    }
+
     /** Test legal moves. */
     @Test
     public void testLegality1() {
@@ -120,6 +149,53 @@ public class BoardTest {
         assertFalse("b1-b4", b.isLegal(mv("b1-b4")));
     }
 
+    /** Test that the buffer form of legalMoves agrees with the list
+     *  form. */
+    @Test
+    public void testLegalMovesBuffer() {
+        Board b = new Board(BOARD1, BP);
+        int[] buffer = new int[Board.MAX_MOVES + 5];
+        List<Move> moves = b.legalMoves();
+        int n = b.legalMoves(buffer, 5);
+        assertEquals(moves.size(), n);
+        for (int i = 0; i < n; i += 1) {
+            Move m = Move.mv(buffer[5 + i]);
+            assertTrue(m.toString(), moves.contains(Move.mv(m.getFrom(),
+                                                            m.getTo())));
+            assertTrue(m.toString(), b.isLegal(m));
+            assertEquals(m.toString(), b.get(m.getTo()) == WP,
+                         m.isCapture());
+            assertEquals(buffer[5 + i], m.pack());
+        }
+    }
+
+    /** Test that tacticalMoves gives exactly the captures and the moves
+     *  that connect the mover's pieces. */
+    @Test
+    public void testTacticalMoves() {
+        Piece[][][] positions = { BOARD1, Benchmarks.ENDGAME };
+        for (Piece[][] position : positions) {
+            for (Piece side : new Piece[] { BP, WP }) {
+                Board b = new Board(position, side);
+                int[] all = new int[Board.MAX_MOVES];
+                int[] tactical = new int[Board.MAX_MOVES];
+                int n = b.legalMoves(all, 0);
+                int k = b.tacticalMoves(tactical, 0);
+                int expected = 0;
+                for (int i = 0; i < n; i += 1) {
+                    b.makeMove(all[i]);
+                    boolean connects = b.piecesContiguous(side);
+                    b.retract();
+                    if (Move.isCapture(all[i]) || connects) {
+                        assertEquals(all[i], tactical[expected]);
+                        expected += 1;
+                    }
+                }
+                assertEquals(expected, k);
+            }
+        }
+    }
+
     /** Test contiguity. */
     @Test
     public void testContiguous1() {
@@ -137,6 +213,47 @@ public class BoardTest {
         assertTrue("Board 3 game over", b2.gameOver());
     }
 
+    /** Test that a side with no pieces is not contiguous, and so does
+     *  not win. */
+    @Test
+    public void testNoPieces() {
+        Board b = new Board();
+        for (Square s : ALL_SQUARES) {
+            if (b.get(s) == WP) {
+                b.set(s, EMP);
+            }
+        }
+        assertFalse(b.piecesContiguous(WP));
+        assertFalse(b.piecesContiguous(BP));
+        assertNull(b.winner());
+    }
+
+    /** Test that the side that just moved wins by connecting. */
+    @Test
+    public void testWinnerAfterMove() {
+        Board b = new Board();
+        for (Square s : ALL_SQUARES) {
+            b.set(s, EMP);
+        }
+        b.set(sq("b2"), BP);
+        b.set(sq("c2"), BP);
+        b.set(sq("d2"), BP);
+        b.set(sq("e4"), BP);
+        b.set(sq("a8"), WP);
+        b.set(sq("h8"), WP, BP);
+        assertNull(b.winner());
+        assertEquals(2, b.regionCount(BP));
+        assertEquals(3, b.largestRegion(BP));
+        b.makeMove(mv("e4-e3"));
+        assertEquals(BP, b.winner());
+        assertEquals(1, b.regionCount(BP));
+        assertEquals(Arrays.asList(4), b.getRegionSizes(BP));
+        assertEquals(Arrays.asList(1, 1), b.getRegionSizes(WP));
+        b.retract();
+        assertNull(b.winner());
+        assertEquals(2, b.regionCount(BP));
+    }
+
     @Test
     public void testNumContig() {
         Board b1 = new Board(BOARD2, BP);
@@ -165,6 +282,22 @@ public class BoardTest {
         assertEquals(b1, b2);
     }
 
+    @Test
+    public void testCopyPosition() {
+        Board b1 = new Board(BOARD1, BP);
+        b1.makeMove(mv("f3-d5"));
+        Board b2 = new Board();
+        b2.copyPosition(b1);
+        assertEquals(b1, b2);
+        assertEquals(0, b2.movesMade());
+        b2.makeMove(mv("a3-d3").pack());
+        b1.makeMove(mv("a3-d3"));
+        assertEquals(b1, b2);
+        b2.retract();
+        b1.retract();
+        assertEquals(b1, b2);
+    }
+
     @Test
     public void testMove1() {
         Board b0 = new Board(BOARD1, BP);
@@ -180,4 +313,227 @@ public class BoardTest {
                 0, b1.movesMade());
     }
 
+    /** Return a new board with the same contents and side to move as B,
+     *  built from scratch rather than by making moves. */
+    private static Board rebuild(Board b) {
+        Piece[][] contents = new Piece[BOARD_SIZE][BOARD_SIZE];
+        for (Square s : ALL_SQUARES) {
+            contents[s.row()][s.col()] = b.get(s);
+        }
+        return new Board(contents, b.turn());
+    }
+
+    @Test
+    public void testZobristKey() {
+        Board b1 = new Board(BOARD1, BP);
+        Board b2 = new Board(BOARD1, WP);
+        assertEquals(b1.zobristKey(), new Board(BOARD1, BP).zobristKey());
+        assertNotEquals(b1.zobristKey(), b2.zobristKey());
+        assertNotEquals(b1.zobristKey(), new Board().zobristKey());
+        b2.set(sq("a2"), WP, BP);
+        assertEquals(b1.zobristKey(), b2.zobristKey());
+        b2.set(sq("a2"), EMP);
+        assertEquals(rebuild(b2).zobristKey(), b2.zobristKey());
+        assertNotEquals(b1.zobristKey(), b2.zobristKey());
+        b1.copyFrom(b2);
+        assertEquals(b2.zobristKey(), b1.zobristKey());
+    }
+
+    @Test
+    public void testZobristTransposition() {
+        Board b1 = new Board();
+        Board b2 = new Board();
+        b1.makeMove(mv("b1-b3"));
+        b1.makeMove(mv("a2-c2"));
+        b1.makeMove(mv("g1-g3"));
+        b2.makeMove(mv("g1-g3"));
+        b2.makeMove(mv("a2-c2"));
+        b2.makeMove(mv("b1-b3"));
+        assertEquals(b1, b2);
+        assertEquals(b1.zobristKey(), b2.zobristKey());
+    }
+
+    @Test
+    public void testZobristMakeRetract() {
+        Random random = new Random(61);
+        for (int game = 0; game < 50; game += 1) {
+            Board b = new Board(game % 2 == 0 ? Board.INITIAL_PIECES : BOARD1,
+                                BP);
+            long[] keys = new long[40];
+            int made;
+            for (made = 0; made < keys.length && !b.gameOver(); made += 1) {
+                List<Move> moves = b.legalMoves();
+                if (moves.isEmpty()) {
+                    break;
+                }
+                keys[made] = b.zobristKey();
+                b.makeMove(moves.get(random.nextInt(moves.size())));
+                assertEquals(rebuild(b).zobristKey(), b.zobristKey());
+            }
+            while (made > 0) {
+                made -= 1;
+                b.retract();
+                assertEquals(keys[made], b.zobristKey());
+            }
+        }
+    }
+
+    /** Test that a null move only passes the turn, and is undone by
+     *  retract. */
+    @Test
+    public void testNullMove() {
+        Board b = new Board(BOARD1, BP);
+        Board before = new Board(BOARD1, BP);
+        b.makeMove(mv("b1-b3"));
+        before.makeMove(mv("b1-b3"));
+        b.makeNullMove();
+        assertEquals(BP, b.turn());
+        assertEquals(2, b.movesMade());
+        assertEquals(Move.NO_MOVE, b.moveMade(1));
+        assertEquals(rebuild(b).zobristKey(), b.zobristKey());
+        b.makeMove(b.legalMoves().get(0));
+        b.retract();
+        b.retract();
+        assertEquals(before, b);
+        assertEquals(before.zobristKey(), b.zobristKey());
+    }
+
+    /** Test that the evaluation features kept up to date by makeMove and
+     *  retract agree with those of a newly built board. */
+    @Test
+    public void testIncrementalFeatures() {
+        Board initial = new Board();
+        assertEquals(8, initial.quadCount(BP, Board.QUAD_ONE));
+        assertEquals(0, initial.quadCount(BP, Board.QUAD_DIAGONAL));
+        assertEquals(0, Evaluator.evaluate(initial, BP));
+        Random random = new Random(20);
+        int[] expected = new int[Evaluator.NUM_FEATURES],
+            actual = new int[Evaluator.NUM_FEATURES];
+        for (int game = 0; game < 20; game += 1) {
+            Board b = new Board(game % 2 == 0 ? Board.INITIAL_PIECES : BOARD1,
+                                BP);
+            Board start = new Board(b);
+            for (int made = 0; made < 40 && !b.gameOver(); made += 1) {
+                List<Move> moves = b.legalMoves();
+                b.makeMove(moves.get(random.nextInt(moves.size())));
+                Evaluator.features(rebuild(b), BP, expected);
+                Evaluator.features(b, BP, actual);
+                assertArrayEquals(expected, actual);
+                assertEquals(-Evaluator.evaluate(b, WP),
+                             Evaluator.evaluate(b, BP));
+                assertTrue(b.eulerNumber(WP) <= b.regionCount(WP));
+            }
+            while (b.movesMade() > 0) {
+                b.retract();
+            }
+            Evaluator.features(start, BP, expected);
+            Evaluator.features(b, BP, actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    /** Test that region summaries reused after retract agree with those
+     *  of a newly built board. */
+    @Test
+    public void testRegionsAfterRetract() {
+        Random random = new Random(3);
+        Board b = new Board(BOARD1, BP);
+        for (int k = 0; k < 40 && !b.gameOver(); k += 1) {
+            List<Move> moves = b.legalMoves();
+            b.makeMove(moves.get(random.nextInt(moves.size())));
+            assertSameRegions(rebuild(b), b);
+            if (k % 2 == 1) {
+                b.retract();
+                assertSameRegions(rebuild(b), b);
+            }
+        }
+    }
+
+    /** Assert that B has the same regions as EXPECTED for each side. */
+    private static void assertSameRegions(Board expected, Board b) {
+        for (Piece side : new Piece[] { BP, WP }) {
+            assertEquals(expected.regionCount(side), b.regionCount(side));
+            assertEquals(expected.largestRegion(side),
+                         b.largestRegion(side));
+        }
+    }
+
+    /** Test the Euler numbers of positions with and without holes. */
+    @Test
+    public void testEulerNumber() {
+        Board b = new Board();
+        assertEquals(2, b.eulerNumber(BP));
+        assertEquals(2, b.eulerNumber(WP));
+        Piece[][] ring = new Piece[BOARD_SIZE][BOARD_SIZE];
+        for (Piece[] row : ring) {
+            Arrays.fill(row, EMP);
+        }
+        for (int r = 2; r <= 4; r += 1) {
+            ring[r][2] = ring[r][4] = BP;
+        }
+        ring[2][3] = ring[4][3] = BP;
+        ring[0][0] = ring[7][7] = WP;
+        b = new Board(ring, BP);
+        assertEquals(0, b.eulerNumber(BP));
+        assertEquals(1, b.regionCount(BP));
+        assertEquals(2, b.eulerNumber(WP));
+        assertEquals(BP, b.winner());
+    }
+
+    /** Test that retracting a move after squares have been set undoes
+     *  just the move, and finds the winner anew. */
+    @Test
+    public void testRetractAfterSet() {
+        Board b = new Board();
+        assertNull(b.winner());
+        b.makeMove(mv("b1-b3"));
+        assertNull(b.winner());
+        for (Square s : ALL_SQUARES) {
+            if (b.get(s) == BP) {
+                b.set(s, EMP);
+            }
+        }
+        b.retract();
+        assertEquals(0, b.movesMade());
+        assertEquals(BP, b.get(sq("b1")));
+        assertEquals(1, b.pieceCount(BP));
+        assertEquals(BP, b.turn());
+        assertEquals(BP, b.winner());
+    }
+
+    /** Test retracting a line of play in which the same move is made
+     *  twice. */
+    @Test
+    public void testRetractRepeatedMove() {
+        Board b = new Board();
+        String[] line = { "b1-b3", "a2-a8", "b3-b1", "h2-h8", "b1-b3" };
+        Board[] before = new Board[line.length];
+        for (int i = 0; i < line.length; i += 1) {
+            before[i] = new Board(b);
+            b.makeMove(mv(line[i]));
+        }
+        assertEquals(line.length, b.movesMade());
+        assertEquals(mv("a2-a8").pack(), b.moveMade(1));
+        for (int i = line.length - 1; i >= 0; i -= 1) {
+            b.retract();
+            assertEquals(i, b.movesMade());
+            assertEquals(before[i], b);
+            assertEquals(before[i].winner(), b.winner());
+        }
+        assertEquals(new Board(), b);
+    }
+
+    /** Test move-path counts against known values. */
+    @Test
+    public void testPerft() {
+        Board b = new Board();
+        assertEquals(1, Perft.perft(b, 0));
+        assertEquals(36, Perft.perft(b, 1));
+        assertEquals(1244, Perft.perft(b, 2));
+        assertEquals(44952, Perft.perft(b, 3));
+        assertEquals(47376, Perft.perft(new Board(BOARD1, BP), 3));
+        assertEquals(0, Perft.perft(new Board(BOARD2, WP), 2));
+        assertEquals(new Board(), b);
+    }
+
 }
@@ -0,0 +1,196 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import ucb.util.CommandArgs;
+
+import static loa.Piece.*;
+
+/** Builds opening books (see OpeningBook) for the standard initial
+ *  position.  Usage:
+ *
+ *      java loa.BookBuilder [ --plies=N ] [ --time=MSEC ] BOOK [ LOG ... ]
+ *
+ *  With no LOG files, the book is built by search: for each side, every
+ *  position that side can reach in its first N plies (default 3) against
+ *  any replies, playing its own moves from the book, is searched for
+ *  MSEC milliseconds (default 5000), and the move found is entered.
+ *  Otherwise, the book is built from the games recorded in the LOG
+ *  files (as written by "java loa.Main --log=LOG"): each move made in
+ *  the first N plies of a game by its eventual winner is entered, with
+ *  a weight equal to the number of games in which it was so made.
+ *  @author Israel Rodriguez
+ */
+class BookBuilder {
+
+    /** Default number of plies from the initial position covered. */
+    static final int DEFAULT_PLIES = 3;
+    /** Default time for each search, in milliseconds. */
+    static final long DEFAULT_TIME = 5000;
+
+    /** Build the book described by ARGS (see the class comment). */
+    public static void main(String... args) {
+        CommandArgs options =
+            new CommandArgs("--plies=(\\d+){0,1} --time=(\\d+){0,1} "
+                            + "--=(.*){1,}", args);
+        if (!options.ok()) {
+            System.err.println("Usage: java loa.BookBuilder [ --plies=N ] "
+                               + "[ --time=MSEC ] BOOK [ LOG ... ]");
+            System.exit(1);
+        }
+        int plies = options.contains("--plies")
+            ? options.getInt("--plies") : DEFAULT_PLIES;
+        long millis = options.contains("--time")
+            ? Math.max(1, options.getLong("--time")) : DEFAULT_TIME;
+        List<String> files = options.get("--");
+
+        BookBuilder builder = new BookBuilder(plies);
+        try {
+            if (files.size() == 1) {
+                builder.search(millis);
+            } else {
+                for (String log : files.subList(1, files.size())) {
+                    builder.readLog(log);
+                }
+            }
+            builder.write(files.get(0));
+        } catch (IOException excp) {
+            System.err.printf("Could not build book: %s%n",
+                              excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** A builder of a book covering the first PLIES plies of games. */
+    BookBuilder(int plies) {
+        _plies = plies;
+    }
+
+    /** Enter the moves found by searching, for MILLIS milliseconds each,
+     *  the positions described in the class comment. */
+    void search(long millis) {
+        MachinePlayer player = new MachinePlayer();
+        Set<Long> searched = new HashSet<>();
+        for (Piece side : new Piece[] { BP, WP }) {
+            search(new Board(), side, player, millis, searched);
+        }
+    }
+
+    /** Enter the moves found by PLAYER, searching for MILLIS milliseconds
+     *  each, for the positions reachable from BOARD within the first
+     *  _plies plies in which SIDE is to move, taking SIDE's moves from
+     *  the book and trying all of its opponent's.  SEARCHED holds the
+     *  keys of the positions already searched. */
+    private void search(Board board, Piece side, MachinePlayer player,
+                        long millis, Set<Long> searched) {
+        if (board.movesMade() >= _plies || board.gameOver()) {
+            return;
+        }
+        if (board.turn() == side) {
+            long key = board.zobristKey();
+            if (searched.add(key)) {
+                Move move = player.searchForMove(board, millis, 0);
+                System.out.printf("%s: %s%n", moveList(board), move);
+                add(key, move, 1);
+            }
+            for (int move : moves(key).keySet()) {
+                board.makeMove(Move.mv(move));
+                search(board, side, player, millis, searched);
+                board.retract();
+            }
+        } else {
+            for (Move move : board.legalMoves()) {
+                board.makeMove(move);
+                search(board, side, player, millis, searched);
+                board.retract();
+            }
+        }
+    }
+
+    /** Enter the winners' moves from the games recorded in the log file
+     *  named FILENAME. */
+    void readLog(String fileName) throws IOException {
+        for (Board game : GameLog.readGames(fileName)) {
+            addGame(game);
+        }
+    }
+
+    /** Enter the moves made by the winner in the first _plies plies of
+     *  the game leading to BOARD, if it is over. */
+    private void addGame(Board board) {
+        Piece winner = board.winner();
+        if (winner != BP && winner != WP) {
+            return;
+        }
+        Board replay = new Board();
+        for (int i = 0; i < board.movesMade(); i += 1) {
+            int move = board.moveMade(i);
+            if (i < _plies && replay.turn() == winner) {
+                add(replay.zobristKey(), Move.mv(move), 1);
+            }
+            replay.makeMove(move);
+        }
+        _games += 1;
+    }
+
+    /** Write the book to a new file named FILENAME. */
+    void write(String fileName) throws IOException {
+        int size = 0;
+        for (Map<Integer, Integer> moves : _entries.values()) {
+            size += moves.size();
+        }
+        long[] keys = new long[size];
+        int[] moves = new int[size], weights = new int[size];
+        int i = 0;
+        for (Map.Entry<Long, Map<Integer, Integer>> position
+                 : _entries.entrySet()) {
+            for (Map.Entry<Integer, Integer> entry
+                     : position.getValue().entrySet()) {
+                keys[i] = position.getKey();
+                moves[i] = entry.getKey();
+                weights[i] = entry.getValue();
+                i += 1;
+            }
+        }
+        OpeningBook.write(fileName, keys, moves, weights);
+        System.out.printf("%d positions, %d moves", _entries.size(), size);
+        System.out.printf(_games > 0 ? " from %d games%n" : "%n", _games);
+    }
+
+    /** Add WEIGHT to the weight of MOVE in the position with Zobrist key
+     *  KEY. */
+    private void add(long key, Move move, int weight) {
+        moves(key).merge(Move.squares(move.pack()), weight, Integer::sum);
+    }
+
+    /** Return the moves entered for the position with Zobrist key KEY,
+     *  as a map from packed moves (as by Move.squares) to weights. */
+    private Map<Integer, Integer> moves(long key) {
+        return _entries.computeIfAbsent(key, k -> new TreeMap<>());
+    }
+
+    /** Return the moves made to reach BOARD, for progress reports. */
+    private static String moveList(Board board) {
+        StringBuilder moves = new StringBuilder("start");
+        for (int i = 0; i < board.movesMade(); i += 1) {
+            moves.append(' ').append(Move.mv(board.moveMade(i)));
+        }
+        return moves.toString();
+    }
+
+    /** Number of plies from the initial position covered. */
+    private final int _plies;
+    /** The entries so far, indexed by key and then by move. */
+    private final TreeMap<Long, Map<Integer, Integer>> _entries =
+        new TreeMap<>();
+    /** Number of games read from logs that contributed moves. */
+    private int _games;
+
+}
@@ -0,0 +1,180 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/** The static evaluation function: a weighted sum of features of a
+ *  position, each the difference between the value for one side and
+ *  that for the other.  The features come from the Board (see
+ *  Board.pieceCount and the methods following it).  Centralization and
+ *  the quad counts are kept up to date there as moves are made and
+ *  retracted; concentration, mobility, and walled pieces are computed
+ *  from the pieces when asked for, and regions are recomputed only
+ *  when a side's pieces change.
+ *  @author Israel Rodriguez
+ */
+class Evaluator {
+
+    /* Indices of the features.  Each is larger when it is better for
+     * the side in question. */
+
+    /** Less the sum of distances to the center of mass, beyond the least
+     *  possible (see Board.concentration). */
+    static final int CONCENTRATION = 0;
+    /** Average centralization of the pieces, in eighths. */
+    static final int CENTRALIZATION = 1;
+    /** Less the Euler number of the pieces (regions less holes; see
+     *  Board.eulerNumber). */
+    static final int QUADS = 2;
+    /** Less the number of regions. */
+    static final int REGIONS = 3;
+    /** Mobility (see Board.mobility). */
+    static final int MOBILITY = 4;
+    /** Less the number of pieces walled in on the edge. */
+    static final int WALLS = 5;
+
+    /** Number of features. */
+    static final int NUM_FEATURES = 6;
+
+    /** Names of the features, indexed by feature. */
+    static final String[] FEATURE_NAMES = {
+        "concentration", "centralization", "quads", "regions", "mobility",
+        "walls"
+    };
+
+    /** The weights used unless others are set. */
+    static final int[] DEFAULT_WEIGHTS = { 6, 2, 32, 30, 1, 12 };
+
+    /** Use WEIGHTS, indexed by feature, in all further evaluations. */
+    static void setWeights(int[] weights) {
+        if (weights.length != NUM_FEATURES) {
+            throw new IllegalArgumentException("wrong number of weights");
+        }
+        _weights = weights.clone();
+        _version += 1;
+    }
+
+    /** Return a number that changes whenever the weights do, so that
+     *  saved evaluations can be discarded. */
+    static int version() {
+        return _version;
+    }
+
+    /** Return a copy of the weights currently in use. */
+    static int[] weights() {
+        return _weights.clone();
+    }
+
+    /** Return the weights in the file named FILENAME, which has one line
+     *  for each feature, giving its name (see FEATURE_NAMES) and weight.
+     *  Blank lines and lines starting with "#" are ignored.  Throws
+     *  IOException if the file cannot be read or is malformed. */
+    static int[] readWeights(String fileName) throws IOException {
+        int[] weights = new int[NUM_FEATURES];
+        boolean[] seen = new boolean[NUM_FEATURES];
+        try (BufferedReader in =
+             new BufferedReader(new FileReader(fileName))) {
+            for (String line = in.readLine(); line != null;
+                 line = in.readLine()) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] words = line.split("\\s+");
+                int f = feature(words[0]);
+                if (words.length != 2 || f < 0 || seen[f]) {
+                    throw new IOException("bad weight: " + line);
+                }
+                try {
+                    weights[f] = Integer.parseInt(words[1]);
+                } catch (NumberFormatException excp) {
+                    throw new IOException("bad weight: " + line);
+                }
+                seen[f] = true;
+            }
+        }
+        for (int f = 0; f < NUM_FEATURES; f += 1) {
+            if (!seen[f]) {
+                throw new IOException("no weight for " + FEATURE_NAMES[f]);
+            }
+        }
+        return weights;
+    }
+
+    /** Write WEIGHTS, with COMMENT, to a new file named FILENAME in the
+     *  form read by readWeights. */
+    static void writeWeights(String fileName, int[] weights, String comment)
+        throws IOException {
+        try (PrintStream out = new PrintStream(fileName)) {
+            out.printf("# %s%n", comment);
+            for (int f = 0; f < NUM_FEATURES; f += 1) {
+                out.printf("%s %d%n", FEATURE_NAMES[f], weights[f]);
+            }
+        }
+    }
+
+    /** Return the value of BOARD for SIDE: positive if it favors SIDE, and
+     *  the negation of its value for the other side. */
+    static int evaluate(Board board, Piece side) {
+        Piece other = side.opposite();
+        int[] weights = _weights;
+        return weights[CONCENTRATION]
+            * (board.concentration(other) - board.concentration(side))
+            + weights[CENTRALIZATION]
+            * (centralization(board, side) - centralization(board, other))
+            + weights[QUADS]
+            * (board.eulerNumber(other) - board.eulerNumber(side))
+            + weights[REGIONS]
+            * (board.regionCount(other) - board.regionCount(side))
+            + weights[MOBILITY]
+            * (board.mobility(side) - board.mobility(other))
+            + weights[WALLS]
+            * (board.walledPieces(other) - board.walledPieces(side));
+    }
+
+    /** Fill FEATURES, indexed by feature, with the features of BOARD for
+     *  SIDE less those for the other side, so that evaluate(BOARD, SIDE)
+     *  is the sum of the products of FEATURES with the weights. */
+    static void features(Board board, Piece side, int[] features) {
+        Piece other = side.opposite();
+        features[CONCENTRATION] =
+            board.concentration(other) - board.concentration(side);
+        features[CENTRALIZATION] =
+            centralization(board, side) - centralization(board, other);
+        features[QUADS] =
+            board.eulerNumber(other) - board.eulerNumber(side);
+        features[REGIONS] =
+            board.regionCount(other) - board.regionCount(side);
+        features[MOBILITY] = board.mobility(side) - board.mobility(other);
+        features[WALLS] =
+            board.walledPieces(other) - board.walledPieces(side);
+    }
+
+    /** Return the index of the feature named NAME, or -1 if there is
+     *  none. */
+    private static int feature(String name) {
+        for (int f = 0; f < NUM_FEATURES; f += 1) {
+            if (FEATURE_NAMES[f].equals(name)) {
+                return f;
+            }
+        }
+        return -1;
+    }
+
+    /** Return the average centralization of SIDE's pieces on BOARD, in
+     *  eighths. */
+    private static int centralization(Board board, Piece side) {
+        int n = board.pieceCount(side);
+        return n == 0 ? 0 : 8 * board.centralization(side) / n;
+    }
+
+    /** The weights in use, indexed by feature. */
+    private static int[] _weights = DEFAULT_WEIGHTS.clone();
+    /** Number of times the weights have been set. */
+    private static int _version;
+
+}
@@ -59,6 +59,7 @@ class Game {
 
     /** Quit the game. */
     private void quit() {
+        stopThinking();
         System.exit(0);
     }
 
@@ -109,12 +110,19 @@ class Game {
                 case "#":
                     break;
                 case "new":
+                    stopThinking();
                     _board.clear();
                     _playing = true;
                     break;
                 case "dump":
                     System.out.printf("%s%n", _board);
                     break;
+                case "perft":
+                    perftCommand(command.group(2));
+                    break;
+                case "stats":
+                    statsCommand();
+                    break;
                 case "manual":
                     manualCommand(command.group(2).toLowerCase());
                     break;
@@ -174,9 +182,11 @@ class Game {
     private void manualCommand(String player) {
         switch (player) {
             case "white":
+                _white.stopThinking();
                 _white = _manualPlayerTemplate.create(WP, this);
                 break;
             case "black":
+                _black.stopThinking();
                 _black = _manualPlayerTemplate.create(BP, this);
                 break;
             default:
@@ -188,9 +198,11 @@ class Game {
     private void autoCommand(String player) {
         switch (player) {
             case "white":
+                _white.stopThinking();
                 _white = _autoPlayerTemplate.create(WP, this);
                 break;
             case "black":
+                _black.stopThinking();
                 _black = _autoPlayerTemplate.create(BP, this);
                 break;
             default:
@@ -198,6 +210,13 @@ class Game {
         }
     }
 
+    /** Stop any background work by both players (see
+     *  Player.stopThinking). */
+    private void stopThinking() {
+        _white.stopThinking();
+        _black.stopThinking();
+    }
+
     /** Seed random-number generator with SEED (as a long). */
     private void seedCommand(String seed) {
         try {
@@ -207,6 +226,40 @@ class Game {
         }
     }
 
+    /**
+     * Print perft counts (see Perft) for the current position to depth
+     * DEPTH.
+     */
+    private void perftCommand(String depth) {
+        try {
+            int d = Integer.parseInt(depth);
+            if (d < 1) {
+                error("perft depth must be positive: %s%n", depth);
+            } else {
+                Perft.divide(_board, d, System.out);
+            }
+        } catch (NumberFormatException excp) {
+            error("Invalid number: %s%n", depth);
+        }
+    }
+
+    /** Print the result of the latest search by each player that
+     *  searches for moves (see Player.searchStats). */
+    private void statsCommand() {
+        boolean any = false;
+        for (Player player : new Player[] { _black, _white }) {
+            SearchStats stats = player.searchStats();
+            if (stats != null) {
+                System.out.printf("%s:%n%s%n", player.side().fullName(),
+                                  stats);
+                any = true;
+            }
+        }
+        if (!any) {
+            System.out.printf("No searches yet.%n");
+        }
+    }
+
     /**
      * Set square S to CONTENT ('black', 'white', or '-'), and next player
      * to move to NEXTPLAYER: 'black' or 'white'.
@@ -257,6 +310,7 @@ class Game {
                 _view.update(this);
                 if (_board.gameOver() && _playing) {
                     announceWinner();
+                    stopThinking();
                     _playing = false;
                 }
                 if (_playing) {
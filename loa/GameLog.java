@@ -0,0 +1,59 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Reading the games recorded in the log files written by
+ *  "java loa.Main --log=LOG", for use by offline tools.
+ *  @author Israel Rodriguez
+ */
+class GameLog {
+
+    /** Return the games recorded in the log file named FILENAME, each as
+     *  a Board on which its moves have been made, finished or not.  The
+     *  "new" and "undo" commands are followed; games that were set up
+     *  with "set" or that contain illegal moves are omitted, and all
+     *  other commands are ignored. */
+    static List<Board> readGames(String fileName) throws IOException {
+        List<Board> games = new ArrayList<>();
+        try (BufferedReader log =
+             new BufferedReader(new FileReader(fileName))) {
+            Board board = new Board();
+            boolean valid = true;
+            for (String line = log.readLine(); line != null;
+                 line = log.readLine()) {
+                String[] words = line.trim().split("\\s+");
+                Move move = Move.mv(words[0]);
+                if (words[0].equals("new")) {
+                    if (valid && board.movesMade() > 0) {
+                        games.add(board);
+                    }
+                    board = new Board();
+                    valid = true;
+                } else if (words[0].equals("set")) {
+                    valid = false;
+                } else if (words[0].equals("undo")) {
+                    if (board.movesMade() > 0) {
+                        board.retract();
+                    }
+                } else if (move != null && valid) {
+                    if (board.isLegal(move) && !board.gameOver()) {
+                        board.makeMove(move);
+                    } else {
+                        valid = false;
+                    }
+                }
+            }
+            if (valid && board.movesMade() > 0) {
+                games.add(board);
+            }
+        }
+        return games;
+    }
+
+}
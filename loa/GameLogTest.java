@@ -0,0 +1,55 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the GameLog class.
+ *
+ * @author Israel Rodriguez
+ */
+public class GameLogTest {
+
+    /** A log of four games: one with an undone move, one with an illegal
+     *  move, one set up with "set", and one unfinished, with other
+     *  commands mixed in. */
+    static final String[] LOG = {
+        "seed 5", "b1-b3", "a2-c2", "undo", "h2-f2", "dump",
+        "new", "c1-c3", "b1-b2", "d1-d3",
+        "new", "set d4 black white", "c1-c3",
+        "new", "manual white", "d1-d3"
+    };
+
+    /** Test that the games in LOG are read as described there. */
+    @Test
+    public void testReadGames() throws IOException {
+        File file = File.createTempFile("games", ".log");
+        file.deleteOnExit();
+        try (PrintStream out = new PrintStream(file)) {
+            for (String line : LOG) {
+                out.println(line);
+            }
+        }
+        List<Board> games = GameLog.readGames(file.getPath());
+        assertEquals(2, games.size());
+        assertMoves(games.get(0), "b1-b3", "h2-f2");
+        assertMoves(games.get(1), "d1-d3");
+    }
+
+    /** Assert that the moves made on BOARD are MOVES. */
+    private static void assertMoves(Board board, String... moves) {
+        assertEquals(moves.length, board.movesMade());
+        for (int i = 0; i < moves.length; i += 1) {
+            assertEquals(moves[i], Move.mv(board.moveMade(i)).toString());
+        }
+    }
+
+}
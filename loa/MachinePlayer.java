@@ -2,10 +2,9 @@
  * University of California.  All rights reserved. */
 package loa;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
-
-import static loa.Piece.*;
+import java.util.Random;
 
 /**
  * An automated Player.
@@ -14,13 +13,17 @@ import static loa.Piece.*;
  */
 class MachinePlayer extends Player {
 
-    /**
-     * A position-score magnitude indicating a win (for white if positive,
-     * black if negative).
-     */
-    private static final int WINNING_VALUE = Integer.MAX_VALUE - 20;
-    /** A magnitude greater than a normal value. */
-    private static final int INFTY = Integer.MAX_VALUE;
+    /** Default time allowed for each move, in milliseconds. */
+    static final long DEFAULT_TIME_LIMIT = 1000;
+    /** Longest time spent searching on the opponent's time, as a
+     *  multiple of the time limit. */
+    private static final long PONDER_TIME_FACTOR = 30;
+    /** Inverse of the fraction of the time limit (and of the node limit,
+     *  if any) allowed for the threat search that precedes each full
+     *  search. */
+    private static final long THREAT_TIME_FRACTION = 10;
+    /** Number of nanoseconds in a millisecond. */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
 
     /**
      * A new MachinePlayer with no piece or controller (intended to produce
@@ -37,15 +40,31 @@ class MachinePlayer extends Player {
 
     @Override
     String getMove() {
-        Move choice;
-
         assert side() == getGame().getBoard().turn();
-        int depth;
-        choice = searchForMove();
+        Move choice = bookMove();
+        if (choice != null) {
+            getGame().reportMove(choice);
+            return choice.toString();
+        }
+        SearchStats result = searchForMove();
+        choice = result.bestMove();
         getGame().reportMove(choice);
+        if (_pondering) {
+            startPondering(result.principalVariation());
+        }
         return choice.toString();
     }
 
+    @Override
+    void stopThinking() {
+        finishPondering(null);
+    }
+
+    @Override
+    SearchStats searchStats() {
+        return _searchStats;
+    }
+
     @Override
     Player create(Piece piece, Game game) {
         return new MachinePlayer(piece, game);
@@ -56,103 +75,364 @@ class MachinePlayer extends Player {
         return false;
     }
 
+    /** Set the time allowed for choosing each move to MILLIS > 0
+     *  milliseconds. */
+    static void setTimeLimit(long millis) {
+        _timeLimit = millis;
+    }
+
+    /** Set the number of positions that may be searched for each move to
+     *  NODES, or remove the limit if NODES <= 0. */
+    static void setNodeLimit(long nodes) {
+        _nodeLimit = nodes;
+    }
+
+    /** Set the size of the transposition table of each MachinePlayer
+     *  created from now on to MEGABYTES > 0. */
+    static void setTableSize(int megabytes) {
+        _tableSize = megabytes;
+    }
+
+    /** Set the number of threads that search for each move to
+     *  THREADS > 0. */
+    static void setThreads(int threads) {
+        _threads = threads;
+    }
+
+    /** Search on the opponent's time (see startPondering) iff
+     *  PONDERING. */
+    static void setPondering(boolean pondering) {
+        _pondering = pondering;
+    }
+
+    /** Take moves from BOOK, when it has them, rather than searching, or
+     *  always search if BOOK is null. */
+    static void setBook(OpeningBook book) {
+        _book = book;
+    }
+
+    /** Forget the results of all previous searches. */
+    void clearTable() {
+        if (_table != null) {
+            _table.clear();
+        }
+    }
+
+    /** Return a move from the opening book for the current position, or
+     *  null if there is none.  The book is not used while pondering,
+     *  since the search on the opponent's time must then be finished. */
+    private Move bookMove() {
+        if (_book == null || _ponderThread != null) {
+            return null;
+        }
+        Move move = _book.choose(getBoard(), _random);
+        if (move != null) {
+            Utils.debug(1, "book move: %s", move);
+        }
+        return move;
+    }
+
     /**
-     * Return a move after searching the game tree to DEPTH>0 moves
-     * from the current position. Assumes the game is not over.
+     * Search for a move from the current position as deeply as the time
+     * and node limits allow, and return the result used, with statistics
+     * about the search that found it: a search on the opponent's time
+     * (see finishPondering), a threat search that found a forced win, or
+     * a full search.  Also makes it the result of searchStats().  The
+     * threat search (see findForcedWin) and the full search share
+     * those limits: the full search gets whatever time and positions the
+     * threat search left.  Assumes the game is not over.
      */
-    private Move searchForMove() {
-        Board work = new Board(getBoard());
-        int value;
-        assert side() == work.turn();
-        _foundMove = null;
-        if (side() == WP) {
-            value = findMove(work, chooseDepth(), true, 1, -INFTY, INFTY);
-        } else {
-            value = findMove(work, chooseDepth(), true, -1, -INFTY, INFTY);
+    private SearchStats searchForMove() {
+        assert side() == getBoard().turn();
+        long start = System.nanoTime();
+        SearchStats result = finishPondering(getBoard());
+        if (result == null) {
+            result = findForcedWin(getBoard(), start);
         }
-        return _foundMove;
+        if (result == null) {
+            long nodes = _nodeLimit;
+            if (nodes > 0) {
+                nodes = Math.max(1, nodes - _threatSearcher.nodes());
+            }
+            Searcher[] searchers = startSearch(getBoard(), true);
+            result = runSearch(searchers, start, _timeLimit, nodes);
+            reportSearch(searchers);
+        }
+        _searchStats = result;
+        Utils.debug(1, "%s", result);
+        return result;
+    }
+
+    /** Return the result of a threat search (see ThreatSearcher) for a
+     *  forced win for the side to move on BOARD, or null if it finds
+     *  none.  The search is allowed until a THREAT_TIME_FRACTION of the
+     *  time limit has passed since START, and, if there is a node
+     *  limit, that fraction of it. */
+    private SearchStats findForcedWin(Board board, long start) {
+        if (_threatSearcher == null) {
+            _threatSearcher = new ThreatSearcher();
+        }
+        long nanos = start + _timeLimit * NANOS_PER_MILLI
+            / THREAT_TIME_FRACTION - System.nanoTime();
+        long nodes = _nodeLimit > 0
+            ? Math.max(1, _nodeLimit / THREAT_TIME_FRACTION) : 0;
+        List<Move> line =
+            _threatSearcher.findWin(board, ThreatSearcher.MAX_WIN_LENGTH,
+                                    Math.max(0, nanos), nodes);
+        Utils.debug(2, "threat search: %d nodes",
+                    _threatSearcher.nodes());
+        if (line == null) {
+            return null;
+        }
+        SearchStats stats = new SearchStats(1);
+        stats.add(_threatSearcher.nodes(), 0, 0, 0, 0, 0,
+                  new long[SearchStats.CUTOFF_BUCKETS]);
+        stats.setResult(line, line.size(), System.nanoTime() - start);
+        stats.setForcedWin((line.size() + 1) / 2);
+        return stats;
     }
 
     /**
-     * Find a move from position BOARD and return its value, recording
-     * the move found in _foundMove iff SAVEMOVE. The move
-     * should have maximal value or have value > BETA if SENSE==1,
-     * and minimal value or value < ALPHA if SENSE==-1. Searches up to
-     * DEPTH levels. Searching at level 0 simply returns a static estimate
-     * of the board value and does not set _foundMove. If the game is over
-     * on BOARD, does not set _foundMove.
+     * Return a move for the side to move on BOARD, found by iterative
+     * deepening: searching to depth 1, 2, ... MAX_DEPTH until MILLIS
+     * milliseconds have passed or, if NODES > 0, NODES positions have
+     * been searched by the main search thread. The move is the best one
+     * found by the deepest search that was completed by any thread (the
+     * depth-1 search is always completed). BOARD is unchanged. Assumes
+     * the game is not over.
+     *
+     * With more than one thread (see setThreads), the extra threads
+     * search the same position at the same time, each on its own copy of
+     * BOARD, sharing _table (Lazy SMP).  They do not communicate
+     * otherwise: each profits from the results the others store in the
+     * table.  Half of them start one depth ahead of the main thread, so
+     * that the threads tend to work on different parts of the tree.
      */
-    private int findMove(Board board, int depth, boolean saveMove,
-            int sense, int alpha, int beta) {
-        boolean maximizing;
-        maximizing = sense == 1;
-        if (depth == 0) {
-            return (int) evaluateScore(board, board.turn());
-        }
-        if (maximizing) {
-            int maxVal = -INFTY;
-            List<Move> p = board.legalMoves();
-            for (Move m : p) {
-                board.makeMove(m);
-                int eval = findMove(board, depth - 1, false,
-                        sense * -1, alpha, beta);
-                board.retract();
-                maxVal = Math.max(maxVal, eval);
-                alpha = Math.max(alpha, eval);
-                if (saveMove) {
-                    _foundMove = m;
-                }
-                if (beta <= alpha) {
-                    break;
-                }
-            }
-            return maxVal;
-        } else {
-            int minValue = INFTY;
-            for (Move m : board.legalMoves()) {
-                board.makeMove(m);
-                int eval = findMove(board, depth - 1, false,
-                        sense * -1, alpha, beta);
-                board.retract();
-                minValue = Math.min(minValue, eval);
-                beta = Math.min(beta, eval);
-                if (saveMove) {
-                    _foundMove = m;
-                }
-                if (beta <= alpha) {
-                    break;
-                }
+    Move searchForMove(Board board, long millis, long nodes) {
+        long start = System.nanoTime();
+        Searcher[] searchers = startSearch(board, true);
+        _searchStats = runSearch(searchers, start, millis, nodes);
+        reportSearch(searchers);
+        return _searchStats.bestMove();
+    }
+
+    /** Return Searchers (one per thread, the main one first) ready to
+     *  search BOARD, the main one reporting its progress iff
+     *  REPORTING. */
+    private Searcher[] startSearch(Board board, boolean reporting) {
+        Searcher[] searchers = searchers(_threads);
+        for (Searcher searcher : searchers) {
+            searcher.setPosition(board);
+        }
+        searchers[0].setReporting(reporting);
+        return searchers;
+    }
+
+    /** Run the search prepared by startSearch with SEARCHERS, as for
+     *  searchForMove(BOARD, MILLIS, NODES), treating START as the time
+     *  at which it started, and return its result. */
+    private SearchStats runSearch(Searcher[] searchers, long start,
+                                  long millis, long nodes) {
+        Thread[] helpers = new Thread[searchers.length - 1];
+        for (int i = 1; i < searchers.length; i += 1) {
+            Searcher helper = searchers[i];
+            int firstDepth = 1 + i % 2;
+            helpers[i - 1] = new Thread(() -> helper.deepen(
+                firstDepth, start, millis * NANOS_PER_MILLI, 0));
+            helpers[i - 1].start();
+        }
+        searchers[0].deepen(1, start, millis * NANOS_PER_MILLI, nodes);
+        for (int i = 1; i < searchers.length; i += 1) {
+            searchers[i].stop();
+        }
+        for (Thread helper : helpers) {
+            join(helper, 0);
+        }
+        return collectStats(searchers, start);
+    }
+
+    /** Return the result of the search by SEARCHERS started at time
+     *  START: that of the Searcher that completed the deepest search (the
+     *  main one if there is a tie), with the statistics of all of them. */
+    private static SearchStats collectStats(Searcher[] searchers,
+                                            long start) {
+        SearchStats stats = new SearchStats(searchers.length);
+        Searcher best = searchers[0];
+        for (Searcher searcher : searchers) {
+            searcher.addStats(stats);
+            if (searcher.completedDepth() > best.completedDepth()) {
+                best = searcher;
             }
-            return minValue;
         }
+        stats.setResult(best.principalVariation(), best.completedDepth(),
+                        System.nanoTime() - start);
+        return stats;
+    }
 
+    /** Report the depth reached and positions searched by each of
+     *  SEARCHERS (at debug level 2). */
+    private static void reportSearch(Searcher[] searchers) {
+        for (int i = 0; i < searchers.length; i += 1) {
+            Utils.debug(2, "thread %d: depth %d, %d nodes", i,
+                        searchers[i].completedDepth(), searchers[i].nodes());
+        }
     }
 
     /**
-     * Evaluates the position of Board B, and returns
-     * an assigned score.
+     * Having chosen to play the first move of LINE, the principal
+     * variation from the current position, start searching, on a
+     * background thread, the position that will arise if the opponent
+     * replies with the second.  That search runs while the opponent
+     * thinks, for at most PONDER_TIME_FACTOR times the usual time limit,
+     * and is ended by the next call to finishPondering.  Does nothing if
+     * there is no expected reply or the game would be over.
      */
-    static double evaluateScore(Board board, Piece turn) {
-        final double constA = 0.5;
-        final double constB = 1.2;
-        int turn1 = board.getRegionSizes(turn.opposite()).size();
-        int turn2 = board.getRegionSizes(turn).size();
-        int max1 = Collections.max(board.getRegionSizes(turn));
-        int max2 = Collections.max(board.getRegionSizes(turn.opposite()));
-        int factor1 = turn1 - turn2;
-        int factor2 = max1 - max2;
-        double val = constA * factor2 + constB * factor1;
-        return val;
-        // The more pieces I have, the better (are you sure about that?)
-        // Some combinations of moves will lead to the same board state.
-    }
-
-    /** Return a search depth for the current position. */
-    private int chooseDepth() {
-        return 3;
-    }
-
-    /** Used to convey moves discovered by findMove. */
-    private Move _foundMove;
+    private void startPondering(List<Move> line) {
+        if (line.size() < 2) {
+            return;
+        }
+        Board position = new Board();
+        position.copyPosition(getBoard());
+        position.makeMove(line.get(0));
+        if (position.gameOver()) {
+            return;
+        }
+        position.makeMove(line.get(1));
+        if (position.gameOver()) {
+            return;
+        }
+        Searcher[] searchers = startSearch(position, false);
+        long start = System.nanoTime();
+        _ponderPosition = position;
+        _ponderSearchers = searchers;
+        _ponderThread = new Thread(() -> {
+            _ponderResult = runSearch(searchers, start,
+                                      PONDER_TIME_FACTOR * _timeLimit, 0);
+        });
+        _ponderThread.setDaemon(true);
+        _ponderThread.start();
+    }
+
+    /**
+     * End any search started by startPondering.  If BOARD is the position
+     * that was being searched (a ponder hit), first let the search go on
+     * for the usual time limit, and then return its result.  Otherwise
+     * (a miss, or if BOARD is null), stop it at once and return null; the
+     * results it saved in _table remain for the next search.
+     */
+    private SearchStats finishPondering(Board board) {
+        if (_ponderThread == null) {
+            return null;
+        }
+        boolean hit = board != null && board.equals(_ponderPosition);
+        if (hit) {
+            join(_ponderThread, _timeLimit);
+        }
+        for (Searcher searcher : _ponderSearchers) {
+            searcher.stop();
+        }
+        join(_ponderThread, 0);
+        Utils.debug(2, "ponder %s", hit ? "hit" : "miss");
+        if (hit) {
+            reportSearch(_ponderSearchers);
+        }
+        SearchStats result = _ponderResult;
+        _ponderThread = null;
+        _ponderPosition = null;
+        _ponderSearchers = null;
+        _ponderResult = null;
+        return hit ? result : null;
+    }
+
+    /**
+     * Return a move for the side to move on BOARD after searching the
+     * game tree to 0 < DEPTH <= MAX_DEPTH moves in one thread, with no
+     * time or node limit. BOARD is unchanged. Assumes the game is not
+     * over.
+     */
+    Move searchForMove(Board board, int depth) {
+        long start = System.nanoTime();
+        Searcher[] searchers = searchers(1);
+        searchers[0].setPosition(board);
+        searchers[0].searchToDepth(depth);
+        _searchStats = collectStats(searchers, start);
+        return _searchStats.bestMove();
+    }
+
+    /** Return N Searchers sharing _table, creating the table and
+     *  Searchers as needed, and start a new search generation in the
+     *  table. */
+    private Searcher[] searchers(int n) {
+        if (_table == null) {
+            _table = new TranspositionTable(_tableSize);
+        }
+        _table.newSearch();
+        if (_searchers.length != n) {
+            Searcher[] searchers = Arrays.copyOf(_searchers, n);
+            for (int i = _searchers.length; i < n; i += 1) {
+                searchers[i] = new Searcher(_table);
+            }
+            _searchers = searchers;
+        }
+        return _searchers;
+    }
+
+    /** Wait for THREAD to finish, or for MILLIS milliseconds if
+     *  MILLIS > 0. */
+    private static void join(Thread thread, long millis) {
+        long deadline = System.currentTimeMillis() + millis;
+        while (thread.isAlive()) {
+            long wait = millis == 0 ? 0 : deadline - System.currentTimeMillis();
+            if (millis > 0 && wait <= 0) {
+                return;
+            }
+            try {
+                thread.join(wait);
+            } catch (InterruptedException excp) {
+                /* Ignore interruptions. */
+            }
+        }
+    }
+
+    /** Time allowed for each move, in milliseconds. */
+    private static long _timeLimit = DEFAULT_TIME_LIMIT;
+    /** Number of positions that may be searched for each move, or 0
+     *  for no limit. */
+    private static long _nodeLimit;
+    /** Size in megabytes of the transposition tables of new
+     *  MachinePlayers. */
+    private static int _tableSize = TranspositionTable.DEFAULT_MEGABYTES;
+    /** Number of threads that search for each move. */
+    private static int _threads = 1;
+    /** True iff MachinePlayers search on their opponents' time. */
+    private static boolean _pondering;
+    /** Opening book used by all MachinePlayers, or null if none. */
+    private static OpeningBook _book;
+
+    /** Searches for forced wins before each full search. Created on
+     *  first use. */
+    private ThreatSearcher _threatSearcher;
+    /** Source of random choices among book moves. */
+    private final Random _random = new Random();
+
+    /** Results of previous searches, kept from move to move. Created on
+     *  first use, so that template players do not allocate one. */
+    private TranspositionTable _table;
+
+    /** The result of my latest search, or null if none. */
+    private SearchStats _searchStats;
+
+    /** Searchers for the threads of the current search, the first
+     *  being the main one. */
+    private Searcher[] _searchers = new Searcher[0];
+
+    /** The thread searching on the opponent's time, or null if none. */
+    private Thread _ponderThread;
+    /** The position searched by _ponderThread. */
+    private Board _ponderPosition;
+    /** The Searchers used by _ponderThread, the main one first. */
+    private Searcher[] _ponderSearchers;
+    /** The result of _ponderThread's search, set when it finishes. */
+    private SearchStats _ponderResult;
 
 }
@@ -0,0 +1,71 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import static loa.Piece.*;
+import static loa.Move.mv;
+
+/**
+ * Tests of the searches made by MachinePlayer.
+ *
+ * @author Israel Rodriguez
+ */
+public class MachinePlayerTest {
+
+    /** A position in which black's only winning move is b6-d4. */
+    static final Piece[][] WIN_IN_ONE = {
+            { EMP, BP, EMP, BP, EMP, EMP, EMP, EMP },
+            { WP, BP, BP, EMP, EMP, EMP, EMP, WP },
+            { BP, BP, BP, EMP, EMP, EMP, EMP, WP },
+            { EMP, EMP, EMP, EMP, EMP, EMP, EMP, WP },
+            { WP, EMP, EMP, EMP, EMP, EMP, EMP, EMP },
+            { EMP, BP, WP, EMP, EMP, WP, EMP, EMP },
+            { WP, EMP, EMP, EMP, EMP, WP, EMP, EMP },
+            { WP, EMP, WP, EMP, WP, EMP, EMP, EMP },
+    };
+
+    /** Number of positions searched by the main thread in each
+     *  node-limited search. */
+    static final long NODES = 20000;
+
+    /** Test that two threads, searching a fixed number of positions,
+     *  find the known best move, as one thread searching to a fixed
+     *  depth does. */
+    @Test
+    public void testTwoThreadsFindBestMove() {
+        Board board = new Board(WIN_IN_ONE, BP);
+        Move best = mv("b6-d4");
+        assertEquals(best, new MachinePlayer().searchForMove(board, 3));
+        MachinePlayer.setThreads(2);
+        try {
+            MachinePlayer player = new MachinePlayer();
+            assertEquals(best, player.searchForMove(board, 60000, NODES));
+            assertEquals(2, player.searchStats().threads());
+        } finally {
+            MachinePlayer.setThreads(1);
+        }
+        assertEquals(new Board(WIN_IN_ONE, BP), board);
+    }
+
+    /** Test that two threads, searching a fixed number of positions
+     *  from the initial position, return a legal move and leave the
+     *  board unchanged. */
+    @Test
+    public void testTwoThreadsLegalMove() {
+        Board board = new Board();
+        MachinePlayer.setThreads(2);
+        try {
+            Move move = new MachinePlayer().searchForMove(board, 60000,
+                                                          NODES);
+            assertTrue(move.toString(), board.isLegal(move));
+        } finally {
+            MachinePlayer.setThreads(1);
+        }
+        assertEquals(new Board(), board);
+    }
+
+}
@@ -37,7 +37,12 @@ public class Main {
     public static void main(String... args) {
         CommandArgs options =
             new CommandArgs("--debug=(\\d+){0,1} --display{0,1} --strict{0,1} "
-                            + "--log={0,1} --=(.*){0,2}",
+                            + "--log={0,1} --time=(\\d+){0,1} "
+                            + "--nodes=(\\d+){0,1} --hash=(\\d+){0,1} "
+                            + "--threads=(\\d+){0,1} --nullmove=(\\d+){0,1} "
+                            + "--lmr=(\\d+){0,1} --ponder{0,1} "
+                            + "--book=(.+){0,1} --weights=(.+){0,1} "
+                            + "--=(.*){0,2}",
                             args);
 
         if (!options.ok()) {
@@ -50,6 +55,46 @@ public class Main {
             setMessageLevel(options.getInt("--debug"));
         }
 
+        if (options.contains("--time")) {
+            MachinePlayer.setTimeLimit(Math.max(1, options.getLong("--time")));
+        }
+        if (options.contains("--nodes")) {
+            MachinePlayer.setNodeLimit(options.getLong("--nodes"));
+        }
+        if (options.contains("--hash")) {
+            MachinePlayer.setTableSize(Math.max(1, options.getInt("--hash")));
+        }
+        if (options.contains("--threads")) {
+            MachinePlayer.setThreads(Math.max(1, options.getInt("--threads")));
+        }
+        MachinePlayer.setPondering(options.contains("--ponder"));
+        if (options.contains("--nullmove")) {
+            Searcher.setNullMoveReduction(options.getInt("--nullmove"));
+        }
+        if (options.contains("--lmr")) {
+            Searcher.setLateMoveReduction(options.getInt("--lmr"));
+        }
+        if (options.contains("--weights")) {
+            try {
+                Evaluator.setWeights(
+                    Evaluator.readWeights(options.getFirst("--weights")));
+            } catch (IOException excp) {
+                System.err.printf("Could not read weights: %s%n",
+                                  excp.getMessage());
+                System.exit(1);
+            }
+        }
+        if (options.contains("--book")) {
+            try {
+                MachinePlayer.setBook(
+                    new OpeningBook(options.getFirst("--book")));
+            } catch (IOException excp) {
+                System.err.printf("Could not open book: %s%n",
+                                  excp.getMessage());
+                System.exit(1);
+            }
+        }
+
         List<String> files = options.get("--");
         if (!files.isEmpty()) {
             try {
@@ -51,6 +51,69 @@ final class Move {
         return mv(from, to, false);
     }
 
+    /* Packed moves: search code represents a move as an int holding
+     * the index of the square moved from (bits 6-11), the index of the
+     * square moved to (bits 0-5), and a capture flag (bit 12).  Packed
+     * moves fit in primitive arrays, and NO_MOVE (which denotes no valid
+     * move) is 0, the default value of such arrays. */
+
+    /** The packed value that denotes no move. */
+    static final int NO_MOVE = 0;
+
+    /** The capture flag in a packed move. */
+    static final int CAPTURE = 1 << 12;
+
+    /** One more than the largest value of squares(PACKED), for sizing
+     *  tables indexed by it. */
+    static final int NUM_SQUARE_PAIRS = NUM_SQUARES * NUM_SQUARES;
+
+    /** Return the move denoted by PACKED, as produced by pack, or null
+     *  if PACKED is NO_MOVE. */
+    static Move mv(int packed) {
+        return _moves[fromIndex(packed)][toIndex(packed)]
+            [isCapture(packed) ? 1 : 0];
+    }
+
+    /** Return the packed move from the square with index FROM to the
+     *  square with index TO, with the capture flag set iff CAPTURE. */
+    static int pack(int from, int to, boolean capture) {
+        return (from << 6) | to | (capture ? CAPTURE : 0);
+    }
+
+    /** Return the packed non-capturing move from the square with index
+     *  FROM to the square with index TO. */
+    static int pack(int from, int to) {
+        return pack(from, to, false);
+    }
+
+    /** Return the index of the square moved from in packed move
+     *  PACKED. */
+    static int fromIndex(int packed) {
+        return (packed >>> 6) & 63;
+    }
+
+    /** Return the index of the square moved to in packed move PACKED. */
+    static int toIndex(int packed) {
+        return packed & 63;
+    }
+
+    /** Return true iff packed move PACKED is flagged as a capture. */
+    static boolean isCapture(int packed) {
+        return (packed & CAPTURE) != 0;
+    }
+
+    /** Return PACKED without its capture flag: a number in
+     *  [0 .. NUM_SQUARE_PAIRS) that identifies its squares, for use as an
+     *  index into tables of moves. */
+    static int squares(int packed) {
+        return packed & (NUM_SQUARE_PAIRS - 1);
+    }
+
+    /** Return my packed form (see pack). */
+    int pack() {
+        return pack(_from.index(), _to.index(), _capture);
+    }
+
     /** Return the Square moved from. */
     Square getFrom() {
         return _from;
@@ -0,0 +1,145 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/** A book of opening moves, read from a file built by BookBuilder.
+ *
+ *  The file is a header (BOOK_MAGIC and the number of entries) followed
+ *  by entries of ENTRY_BYTES bytes, each a Zobrist key (see
+ *  Board.zobristKey), a move for the position with that key (packed, as
+ *  by Move.squares), and a positive weight, sorted by key.  A position
+ *  may have several entries, one per move.  The file is memory-mapped
+ *  rather than read, so that opening even a large book is instant, and
+ *  is searched in place by binary search.
+ *  @author Israel Rodriguez
+ */
+class OpeningBook {
+
+    /** First int of every book file. */
+    static final int BOOK_MAGIC = 0x4c4f4142;
+    /** Size of the header, in bytes. */
+    static final int HEADER_BYTES = 8;
+    /** Size of each entry, in bytes. */
+    static final int ENTRY_BYTES = 16;
+
+    /** The book in the file named FILENAME.  Throws IOException if the
+     *  file cannot be read or is not a book. */
+    OpeningBook(String fileName) throws IOException {
+        Path path = Paths.get(fileName);
+        try (FileChannel channel =
+             FileChannel.open(path, StandardOpenOption.READ)) {
+            _data = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                channel.size());
+        }
+        if (_data.capacity() < HEADER_BYTES
+            || _data.getInt(0) != BOOK_MAGIC
+            || _data.capacity() != HEADER_BYTES
+               + (long) _data.getInt(4) * ENTRY_BYTES) {
+            throw new IOException(fileName + " is not an opening book");
+        }
+        _size = _data.getInt(4);
+    }
+
+    /** Return the number of entries in the book. */
+    int size() {
+        return _size;
+    }
+
+    /** Return a move from the book for the position on BOARD, or null
+     *  if there is none.  When the book has several moves for the
+     *  position, choose one at random using RANDOM, in proportion to
+     *  their weights.  Moves that are not legal on BOARD (which can only
+     *  come from positions whose keys collide) are ignored. */
+    Move choose(Board board, Random random) {
+        long key = board.zobristKey();
+        int first = firstEntry(key);
+        long total = 0;
+        for (int i = first; i < _size && key(i) == key; i += 1) {
+            if (board.isLegal(Move.mv(move(i)))) {
+                total += weight(i);
+            }
+        }
+        if (total == 0) {
+            return null;
+        }
+        long pick = (long) (random.nextDouble() * total);
+        for (int i = first; ; i += 1) {
+            Move move = Move.mv(move(i));
+            if (board.isLegal(move)) {
+                pick -= weight(i);
+                if (pick < 0) {
+                    return move;
+                }
+            }
+        }
+    }
+
+    /** Write a book with entries KEYS[i], MOVES[i], WEIGHTS[i], for
+     *  0 <= i < KEYS.length, sorted by key, to a new file named
+     *  FILENAME. */
+    static void write(String fileName, long[] keys, int[] moves,
+                      int[] weights) throws IOException {
+        ByteBuffer data =
+            ByteBuffer.allocate(HEADER_BYTES + keys.length * ENTRY_BYTES);
+        data.putInt(BOOK_MAGIC).putInt(keys.length);
+        for (int i = 0; i < keys.length; i += 1) {
+            assert i == 0 || keys[i - 1] <= keys[i];
+            data.putLong(keys[i]).putInt(moves[i]).putInt(weights[i]);
+        }
+        data.flip();
+        try (FileChannel channel =
+             FileChannel.open(Paths.get(fileName),
+                              StandardOpenOption.CREATE,
+                              StandardOpenOption.TRUNCATE_EXISTING,
+                              StandardOpenOption.WRITE)) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+    }
+
+    /** Return the index of the first entry whose key is at least KEY
+     *  (_size if there is none). */
+    private int firstEntry(long key) {
+        int low = 0, high = _size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (key(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Return the key of entry I. */
+    private long key(int i) {
+        return _data.getLong(HEADER_BYTES + i * ENTRY_BYTES);
+    }
+
+    /** Return the move (packed, as by Move.squares) of entry I. */
+    private int move(int i) {
+        return _data.getInt(HEADER_BYTES + i * ENTRY_BYTES + 8);
+    }
+
+    /** Return the weight of entry I. */
+    private int weight(int i) {
+        return _data.getInt(HEADER_BYTES + i * ENTRY_BYTES + 12);
+    }
+
+    /** Contents of the book file. */
+    private final MappedByteBuffer _data;
+    /** Number of entries. */
+    private final int _size;
+
+}
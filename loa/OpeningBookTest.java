@@ -0,0 +1,113 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+import static loa.Move.mv;
+
+/**
+ * Tests of the OpeningBook class.
+ *
+ * @author Israel Rodriguez
+ */
+public class OpeningBookTest {
+
+    /** Return the squares of the move described by S (as by Move.mv). */
+    private static int squares(String s) {
+        return Move.squares(mv(s).pack());
+    }
+
+    /** Return the name of a new temporary file, deleted on exit. */
+    private static String tempFile() throws IOException {
+        File file = File.createTempFile("book", ".bin");
+        file.deleteOnExit();
+        return file.getPath();
+    }
+
+    /** Return the name of a new book file with moves for the initial
+     *  position (including an illegal one) and for two other keys. */
+    private static String writeBook() throws IOException {
+        long key = new Board().zobristKey();
+        String fileName = tempFile();
+        OpeningBook.write(fileName,
+                          new long[] { key - 1, key, key, key, key + 1 },
+                          new int[] {
+                              squares("c1-c3"), squares("b1-b3"),
+                              squares("b1-b2"), squares("d1-d3"),
+                              squares("e1-e3")
+                          },
+                          new int[] { 5, 3, 100, 1, 5 });
+        return fileName;
+    }
+
+    /** Test that a book is read back with the entries written, and that
+     *  only legal moves for the position asked about are chosen. */
+    @Test
+    public void testChoose() throws IOException {
+        OpeningBook book = new OpeningBook(writeBook());
+        assertEquals(5, book.size());
+        Board board = new Board();
+        Random random = new Random(2);
+        Set<Move> chosen = new HashSet<>();
+        for (int i = 0; i < 100; i += 1) {
+            Move move = book.choose(board, random);
+            assertTrue(move.toString(), board.isLegal(move));
+            chosen.add(move);
+        }
+        assertEquals(2, chosen.size());
+        assertTrue(chosen.contains(mv("b1-b3")));
+        assertTrue(chosen.contains(mv("d1-d3")));
+        assertEquals(new Board(), board);
+    }
+
+    /** Test that positions not in the book get no move. */
+    @Test
+    public void testMiss() throws IOException {
+        OpeningBook book = new OpeningBook(writeBook());
+        Board board = new Board();
+        board.makeMove(mv("b1-b3"));
+        assertNull(book.choose(board, new Random(2)));
+        String fileName = tempFile();
+        OpeningBook.write(fileName, new long[0], new int[0], new int[0]);
+        OpeningBook empty = new OpeningBook(fileName);
+        assertEquals(0, empty.size());
+        assertNull(empty.choose(new Board(), new Random(2)));
+    }
+
+    /** Test that files that are not books are rejected. */
+    @Test
+    public void testBadFiles() throws IOException {
+        String fileName = writeBook();
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "rw")) {
+            file.writeInt(OpeningBook.BOOK_MAGIC + 1);
+        }
+        assertNotBook(fileName);
+        fileName = writeBook();
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+        assertNotBook(fileName);
+        assertNotBook(tempFile());
+    }
+
+    /** Assert that FILENAME cannot be opened as a book. */
+    private static void assertNotBook(String fileName) {
+        try {
+            new OpeningBook(fileName);
+            fail(fileName + " accepted as a book");
+        } catch (IOException excp) {
+            /* Expected. */
+        }
+    }
+
+}
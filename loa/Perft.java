@@ -0,0 +1,94 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import java.io.PrintStream;
+
+import static loa.Board.MAX_MOVES;
+
+/** Move-path enumeration ("perft") for checking and timing the move
+ *  generator.  perft(B, D) is the number of distinct sequences of D
+ *  legal moves starting from position B, where a position in which the
+ *  game is over has no moves.
+ *  @author Israel Rodriguez
+ */
+class Perft {
+
+    /** Return the number of sequences of DEPTH legal moves from BOARD,
+     *  which is left unchanged. */
+    static long perft(Board board, int depth) {
+        Board work = new Board(board);
+        return count(work, depth, new int[depth + 1][MAX_MOVES]);
+    }
+
+    /** Print, on OUT, the perft count for each legal move from BOARD to
+     *  depth DEPTH > 0, followed by the total, the time taken, and
+     *  the number of nodes per second.  Return the total.  BOARD is
+     *  left unchanged. */
+    static long divide(Board board, int depth, PrintStream out) {
+        Board work = new Board(board);
+        int[][] moves = new int[depth + 1][MAX_MOVES];
+        long start = System.nanoTime();
+        long total = 0;
+        if (!work.gameOver()) {
+            int n = work.legalMoves(moves[depth], 0);
+            for (int i = 0; i < n; i += 1) {
+                int move = moves[depth][i];
+                work.makeMove(move);
+                long nodes = count(work, depth - 1, moves);
+                work.retract();
+                out.printf("%s: %d%n", Move.mv(move), nodes);
+                total += nodes;
+            }
+        }
+        long nanos = Math.max(1, System.nanoTime() - start);
+        out.printf("perft(%d) = %d in %.3f s (%.0f nodes/s)%n", depth, total,
+                   nanos * 1e-9, total * 1e9 / nanos);
+        return total;
+    }
+
+    /** Return perft(BOARD, DEPTH), using MOVES[D] as the move buffer at
+     *  remaining depth D.  BOARD is restored before returning. */
+    private static long count(Board board, int depth, int[][] moves) {
+        if (depth == 0) {
+            return 1;
+        }
+        if (board.gameOver()) {
+            return 0;
+        }
+        int[] buffer = moves[depth];
+        int n = board.legalMoves(buffer, 0);
+        if (depth == 1) {
+            return n;
+        }
+        long total = 0;
+        for (int i = 0; i < n; i += 1) {
+            board.makeMove(buffer[i]);
+            total += count(board, depth - 1, moves);
+            board.retract();
+        }
+        return total;
+    }
+
+    /** Print perft divide output for the initial position to the depth
+     *  given by ARGS[0] (default 4). */
+    public static void main(String... args) {
+        int depth = DEFAULT_DEPTH;
+        if (args.length > 0) {
+            try {
+                depth = Integer.parseInt(args[0]);
+            } catch (NumberFormatException excp) {
+                depth = -1;
+            }
+        }
+        if (depth < 1) {
+            System.err.println("Usage: java loa.Perft [ DEPTH ]");
+            System.exit(1);
+        }
+        divide(new Board(), depth, System.out);
+    }
+
+    /** Depth used by main when none is given. */
+    private static final int DEFAULT_DEPTH = 4;
+
+}
@@ -34,6 +34,18 @@ public abstract class Player {
         return _game;
     }
 
+    /** Return the result of my latest search for a move, with
+     *  statistics about it, or null if I have not searched for one. */
+    SearchStats searchStats() {
+        return null;
+    }
+
+    /** Stop anything I am doing in the background, such as thinking on
+     *  my opponent's time, and wait for it to end.  Called when the game
+     *  ends, a new one starts, or I am replaced. */
+    void stopThinking() {
+    }
+
     /** Return true iff I am a manual (human or non-automated) player. */
     abstract boolean isManual();
 
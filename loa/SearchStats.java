@@ -0,0 +1,198 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import java.util.Formatter;
+import java.util.List;
+
+/** The result of one search for a move, with statistics describing the
+ *  work done, summed over all the threads that took part: positions
+ *  searched (and how many of them by quiescence search), where in the
+ *  move ordering beta cutoffs happened, and how often the transposition
+ *  table had an entry for a position.
+ *  @author Israel Rodriguez
+ */
+class SearchStats {
+
+    /** Number of buckets in the cutoff histogram: cutoffs by the first,
+     *  second, ... move searched, with the last bucket counting all
+     *  later moves. */
+    static final int CUTOFF_BUCKETS = 8;
+
+    /** An empty set of statistics for a search by THREADS threads. */
+    SearchStats(int threads) {
+        _threads = threads;
+    }
+
+    /** Add the counts of positions NODES and QUIESCENCENODES, table
+     *  probes PROBES and HITS, evaluation cache probes EVALUATIONPROBES
+     *  and EVALUATIONHITS, and cutoffs CUTOFFS (indexed by bucket) of one
+     *  thread. */
+    void add(long nodes, long quiescenceNodes, long probes, long hits,
+             long evaluationProbes, long evaluationHits, long[] cutoffs) {
+        _nodes += nodes;
+        _quiescenceNodes += quiescenceNodes;
+        _tableProbes += probes;
+        _tableHits += hits;
+        _evaluationProbes += evaluationProbes;
+        _evaluationHits += evaluationHits;
+        for (int i = 0; i < CUTOFF_BUCKETS; i += 1) {
+            _cutoffs[i] += cutoffs[i];
+        }
+    }
+
+    /** Record the outcome of the search: the principal variation LINE
+     *  found by the deepest search completed, to DEPTH, after NANOS
+     *  nanoseconds. */
+    void setResult(List<Move> line, int depth, long nanos) {
+        _line = line;
+        _depth = depth;
+        _nanos = nanos;
+    }
+
+    /** Record that the principal variation is a forced win in MOVES of
+     *  the mover's moves, as found by a threat search. */
+    void setForcedWin(int moves) {
+        _forcedWin = moves;
+    }
+
+    /** Return the number of moves in which the mover has a forced win,
+     *  or 0 if none was found. */
+    int forcedWin() {
+        return _forcedWin;
+    }
+
+    /** Return the move chosen, or null if there is none. */
+    Move bestMove() {
+        return _line.isEmpty() ? null : _line.get(0);
+    }
+
+    /** Return the principal variation, starting with bestMove(). */
+    List<Move> principalVariation() {
+        return _line;
+    }
+
+    /** Return the depth of the deepest search completed. */
+    int depth() {
+        return _depth;
+    }
+
+    /** Return the number of threads that searched. */
+    int threads() {
+        return _threads;
+    }
+
+    /** Return the time taken, in nanoseconds. */
+    long nanos() {
+        return _nanos;
+    }
+
+    /** Return the number of positions searched. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return the number of positions searched by quiescence search. */
+    long quiescenceNodes() {
+        return _quiescenceNodes;
+    }
+
+    /** Return the number of positions searched per second. */
+    long nodesPerSecond() {
+        return _nodes * NANOS_PER_SECOND / Math.max(1, _nanos);
+    }
+
+    /** Return the number of transposition table lookups. */
+    long tableProbes() {
+        return _tableProbes;
+    }
+
+    /** Return the number of transposition table lookups that found an
+     *  entry. */
+    long tableHits() {
+        return _tableHits;
+    }
+
+    /** Return the number of static evaluations requested. */
+    long evaluationProbes() {
+        return _evaluationProbes;
+    }
+
+    /** Return the number of static evaluations found in an evaluation
+     *  cache. */
+    long evaluationHits() {
+        return _evaluationHits;
+    }
+
+    /** Return the number of beta cutoffs caused by the (K+1)st move
+     *  searched at a position, or for K = CUTOFF_BUCKETS - 1, by any
+     *  later move. */
+    long cutoffs(int k) {
+        return _cutoffs[k];
+    }
+
+    /** Return the total number of beta cutoffs. */
+    long totalCutoffs() {
+        long total = 0;
+        for (long count : _cutoffs) {
+            total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        Formatter out = new Formatter();
+        out.format("best move: %s%n", bestMove());
+        if (_forcedWin > 0) {
+            out.format("win in %d: %s%n", _forcedWin, _line);
+        } else {
+            out.format("principal variation: %s%n", _line);
+        }
+        out.format("depth: %d%n", _depth);
+        out.format("time: %.3f s, %d thread(s)%n", _nanos * 1e-9, _threads);
+        out.format("nodes: %d (%d quiescence), %d nodes/s%n",
+                   _nodes, _quiescenceNodes, nodesPerSecond());
+        out.format("table hits: %d of %d probes (%.1f%%)%n", _tableHits,
+                   _tableProbes, percent(_tableHits, _tableProbes));
+        out.format("evaluation cache hits: %d of %d probes (%.1f%%)%n",
+                   _evaluationHits, _evaluationProbes,
+                   percent(_evaluationHits, _evaluationProbes));
+        long total = totalCutoffs();
+        out.format("beta cutoffs: %d; by move", total);
+        for (int i = 0; i < CUTOFF_BUCKETS; i += 1) {
+            out.format(" %d%s: %.1f%%", i + 1,
+                       i == CUTOFF_BUCKETS - 1 ? "+" : "",
+                       percent(_cutoffs[i], total));
+        }
+        return out.toString();
+    }
+
+    /** Return PART as a percentage of WHOLE (0 if WHOLE is 0). */
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0.0 : 100.0 * part / whole;
+    }
+
+    /** Number of nanoseconds in a second. */
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /** Number of threads that searched. */
+    private final int _threads;
+    /** Principal variation of the deepest search completed. */
+    private List<Move> _line = List.of();
+    /** Depth of the deepest search completed. */
+    private int _depth;
+    /** Length of the forced win found, in the mover's moves, or 0. */
+    private int _forcedWin;
+    /** Time taken, in nanoseconds. */
+    private long _nanos;
+    /** Positions searched, in all and by quiescence search. */
+    private long _nodes, _quiescenceNodes;
+    /** Transposition table lookups, and those that found an entry. */
+    private long _tableProbes, _tableHits;
+    /** Evaluation cache lookups, and those that found the position. */
+    private long _evaluationProbes, _evaluationHits;
+    /** Cutoff histogram (see cutoffs). */
+    private final long[] _cutoffs = new long[CUTOFF_BUCKETS];
+
+}
@@ -0,0 +1,705 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static loa.Board.MAX_MOVES;
+import static loa.Piece.*;
+
+/** The state of one thread's game-tree search: its own copy of the
+ *  position, move buffers, killer moves, history scores, and node count.
+ *  Several Searchers may search the same position at once, sharing one
+ *  transposition table (see MachinePlayer).
+ *  @author Israel Rodriguez
+ */
+class Searcher {
+
+    /**
+     * A position-score magnitude indicating a win (for the side to move
+     * if positive, its opponent if negative).
+     */
+    static final int WINNING_VALUE = Integer.MAX_VALUE - 20;
+    /** A magnitude greater than a normal value. */
+    static final int INFTY = Integer.MAX_VALUE;
+    /** Maximum search depth. */
+    static final int MAX_DEPTH = 64;
+    /** Maximum number of moves searched by quiescence search beyond the
+     *  nominal depth. */
+    private static final int QUIESCENCE_DEPTH = 4;
+    /** Maximum distance from the root of a search to any position
+     *  searched. */
+    static final int MAX_PLY = MAX_DEPTH + QUIESCENCE_DEPTH;
+    /** Initial distance between the value found by one search and each
+     *  end of the aspiration window for the next. */
+    private static final int ASPIRATION_WINDOW = 25;
+    /** Number of entries in each Searcher's evaluation cache (a power
+     *  of 2). */
+    private static final int EVALUATION_CACHE_SIZE = 1 << 16;
+    /** Number of positions searched between checks of the clock. */
+    private static final int TIME_CHECK_INTERVAL = 1024;
+    /** Moves searched at full depth at each position before late move
+     *  reductions apply. */
+    private static final int LATE_MOVE_START = 3;
+    /** Least remaining depth at which late move reductions apply. */
+    private static final int LATE_MOVE_MIN_DEPTH = 3;
+    /** Null moves are tried only when both sides' pieces form at least
+     *  this many regions. */
+    private static final int NULL_MOVE_MIN_REGIONS = 3;
+    /** Default depth reductions for null moves and late moves. */
+    static final int
+        DEFAULT_NULL_MOVE_REDUCTION = 2,
+        DEFAULT_LATE_MOVE_REDUCTION = 1;
+    /** Move ordering scores for the transposition table's move, captures
+     *  (to which the history score is added), and the first killer move.
+     *  History scores are kept below MAX_HISTORY. */
+    private static final int
+        TABLE_MOVE_SCORE = 1 << 30,
+        CAPTURE_SCORE = 1 << 28,
+        KILLER_SCORE = 1 << 27,
+        MAX_HISTORY = 1 << 26;
+
+    /** A Searcher that saves its results in TABLE. */
+    Searcher(TranspositionTable table) {
+        _table = table;
+        clearEvaluations();
+    }
+
+    /** Report the progress of each search (at debug level 2) iff
+     *  REPORTING. */
+    void setReporting(boolean reporting) {
+        _reporting = reporting;
+    }
+
+    /** Set the depth by which the search after a null move is reduced to
+     *  REDUCTION >= 0, 0 disabling null-move pruning. */
+    static void setNullMoveReduction(int reduction) {
+        _nullMoveReduction = reduction;
+    }
+
+    /** Set the depth by which late moves are reduced to REDUCTION >= 0,
+     *  0 disabling late move reductions. */
+    static void setLateMoveReduction(int reduction) {
+        _lateMoveReduction = reduction;
+    }
+
+    /** Prepare to search BOARD, which is not changed. */
+    void setPosition(Board board) {
+        _work.copyPosition(board);
+        ageHistory();
+        if (_evaluatorVersion != Evaluator.version()) {
+            clearEvaluations();
+        }
+        _bestMove = Move.NO_MOVE;
+        _bestLine = new int[0];
+        _completedDepth = 0;
+        _nodes = _quiescenceNodes = _tableProbes = _tableHits = 0;
+        _evaluationProbes = _evaluationHits = 0;
+        Arrays.fill(_cutoffs, 0);
+        _stopped = false;
+    }
+
+    /**
+     * Search the position given to setPosition by iterative deepening,
+     * to depth FIRSTDEPTH, FIRSTDEPTH + 1, ... MAX_DEPTH, until the
+     * time START + NANOS (in System.nanoTime() units) has passed, NODES
+     * (if > 0) positions have been searched, or stop is called.  No new
+     * depth is started after half the time has passed.  Each search
+     * after the first uses an aspiration window around the value found
+     * by the one before.  Afterwards, bestMove(), completedDepth(), and
+     * principalVariation() give the result of the deepest search
+     * completed.  If FIRSTDEPTH is 1, the depth-1 search always
+     * completes.
+     */
+    void deepen(int firstDepth, long start, long nanos, long nodes) {
+        _deadline = start + nanos;
+        _maxNodes = nodes > 0 ? nodes : Long.MAX_VALUE;
+        int value = 0;
+        for (int depth = firstDepth; depth <= MAX_DEPTH; depth += 1) {
+            _limited = depth > 1;
+            if (depth == firstDepth) {
+                value = search(depth, -INFTY, INFTY);
+            } else {
+                value = aspire(depth, value);
+            }
+            if (_aborted) {
+                break;
+            }
+            finishSearch(depth);
+            if (_reporting) {
+                Utils.debug(2, "depth %d: %s (%d), %d nodes, pv %s", depth,
+                            Move.mv(_bestMove), value, _nodes,
+                            principalVariation());
+            }
+            if (Math.abs(value) >= WINNING_VALUE - MAX_PLY
+                || 2 * (System.nanoTime() - start) >= nanos) {
+                break;
+            }
+        }
+    }
+
+    /** Search the position given to setPosition to 0 < DEPTH <=
+     *  MAX_DEPTH, with no time or node limit, setting bestMove(),
+     *  completedDepth(), and principalVariation(). */
+    void searchToDepth(int depth) {
+        _limited = false;
+        search(depth, -INFTY, INFTY);
+        finishSearch(depth);
+    }
+
+    /** Make the current search stop as soon as possible.  May be called
+     *  from another thread. */
+    void stop() {
+        _stopped = true;
+    }
+
+    /** Return the best move (packed) found by the deepest search
+     *  completed, or Move.NO_MOVE if none was. */
+    int bestMove() {
+        return _bestMove;
+    }
+
+    /** Return the depth of the deepest search completed, or 0 if none
+     *  was. */
+    int completedDepth() {
+        return _completedDepth;
+    }
+
+    /** Return the principal variation found by the deepest search
+     *  completed: the line of play expected from the position searched,
+     *  starting with bestMove().  It may be shorter than the search
+     *  depth, for example when the game ends. */
+    List<Move> principalVariation() {
+        ArrayList<Move> result = new ArrayList<>();
+        for (int move : _bestLine) {
+            result.add(Move.mv(Move.squares(move)));
+        }
+        return result;
+    }
+
+    /** Return the number of positions visited since setPosition. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Add my counts of positions, table and evaluation cache probes,
+     *  and cutoffs since setPosition to STATS. */
+    void addStats(SearchStats stats) {
+        stats.add(_nodes, _quiescenceNodes, _tableProbes, _tableHits,
+                  _evaluationProbes, _evaluationHits, _cutoffs);
+    }
+
+    /**
+     * Search to DEPTH with a window of ASPIRATION_WINDOW on each side of
+     * GUESS, the value found by the previous search, and return the
+     * value found.  When the value falls outside the window, search
+     * again with the window widened on that side, doubling the widening
+     * each time.  Sets _aborted if a search was cut short.
+     */
+    private int aspire(int depth, int guess) {
+        if (Math.abs(guess) >= WINNING_VALUE - MAX_PLY) {
+            return search(depth, -INFTY, INFTY);
+        }
+        long delta = ASPIRATION_WINDOW;
+        int alpha = guess - ASPIRATION_WINDOW,
+            beta = guess + ASPIRATION_WINDOW;
+        while (true) {
+            int value = search(depth, alpha, beta);
+            if (_aborted) {
+                return 0;
+            }
+            if (value <= alpha && alpha > -INFTY) {
+                alpha = (int) Math.max(-INFTY, value - delta);
+            } else if (value >= beta && beta < INFTY) {
+                beta = (int) Math.min(INFTY, value + delta);
+            } else {
+                return value;
+            }
+            delta *= 2;
+        }
+    }
+
+    /**
+     * Search _work to DEPTH with window (ALPHA, BETA) and return its
+     * value for the side to move. Sets _aborted if the search was cut
+     * short.
+     */
+    private int search(int depth, int alpha, int beta) {
+        _aborted = false;
+        return findMove(_work, depth, 0, alpha, beta);
+    }
+
+    /** Record the results of a completed search to DEPTH. */
+    private void finishSearch(int depth) {
+        _bestLine = Arrays.copyOf(_pv[0], _pvLength[0]);
+        _bestMove = _bestLine.length > 0 ? _bestLine[0] : Move.NO_MOVE;
+        _completedDepth = depth;
+    }
+
+    /**
+     * Find a move from position BOARD, PLY moves from the root of the
+     * search, and return its value for the side to move, searching DEPTH
+     * more moves deep (negamax).  If the value is at most ALPHA, returns
+     * an upper bound on it; if at least BETA, a lower bound.  At depth
+     * 0, the value is that of a quiescence search (see quiesce).
+     * Sets _pv[PLY][0 .. _pvLength[PLY]-1] to the principal variation
+     * from BOARD (empty if there is none, as when the game is over).
+     *
+     * The first move (in order of scoreMoves) is searched with the full
+     * window; the rest are first searched with a null window around
+     * ALPHA, which only shows whether they are better than the moves
+     * already searched, and searched again fully only if they are
+     * (principal variation search).  Moves ordered late (after
+     * LATE_MOVE_START moves, and not captures or killers) are first
+     * searched _lateMoveReduction moves less deeply, and again at full
+     * depth only if they turn out better than ALPHA (late move
+     * reductions).  Outside the principal variation, if passing (a null
+     * move) and searching _nullMoveReduction moves less deeply still
+     * gives a value of at least BETA, so would any real move, and the
+     * search stops there (null-move pruning; see tryNullMove).
+     *
+     * A side with no legal moves (possible only when it is completely
+     * blocked) has lost.  If the search runs out of time, sets _aborted
+     * and returns a meaningless value. Results are looked up in and
+     * saved to _table.
+     */
+    private int findMove(Board board, int depth, int ply,
+                         int alpha, int beta) {
+        if (depth == 0) {
+            return quiesce(board, QUIESCENCE_DEPTH, ply, alpha, beta);
+        }
+        _pvLength[ply] = 0;
+        if (outOfTime()) {
+            return 0;
+        }
+        Piece winner = board.winner();
+        if (winner != null) {
+            return winningValue(winner, board.turn(), ply);
+        }
+        boolean pvNode = (long) beta - alpha > 1;
+        long key = board.zobristKey();
+        long entry = _table.probe(key);
+        _tableProbes += 1;
+        if (entry != TranspositionTable.NONE) {
+            _tableHits += 1;
+        }
+        int bestMove = TranspositionTable.move(entry);
+        if (entry != TranspositionTable.NONE && !pvNode
+            && TranspositionTable.depth(entry) >= depth) {
+            int score = fromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                || (bound == TranspositionTable.LOWER && score >= beta)
+                || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                return score;
+            }
+        }
+        if (!pvNode && tryNullMove(board, depth, ply, beta)) {
+            board.makeNullMove();
+            int value = -findMove(board, depth - 1 - _nullMoveReduction,
+                                  ply + 1, -beta, -beta + 1);
+            board.retract();
+            if (_aborted) {
+                return 0;
+            }
+            if (value >= beta) {
+                return value >= WINNING_VALUE - MAX_PLY ? beta : value;
+            }
+        }
+        int alpha0 = alpha;
+        int bestValue = -INFTY;
+        int[] moves = _moveStack[ply];
+        int[] scores = _scoreStack[ply];
+        int n = board.legalMoves(moves, 0);
+        if (n == 0) {
+            return winningValue(board.turn().opposite(), board.turn(), ply);
+        }
+        scoreMoves(board.turn(), moves, scores, n, bestMove, ply);
+        for (int i = 0; i < n; i += 1) {
+            selectMove(moves, scores, i, n);
+            int move = moves[i];
+            int reduction = 0;
+            if (i >= LATE_MOVE_START && depth >= LATE_MOVE_MIN_DEPTH
+                && scores[i] < KILLER_SCORE - 1) {
+                reduction = Math.min(_lateMoveReduction, depth - 1);
+            }
+            board.makeMove(move);
+            int value;
+            if (i == 0) {
+                value = -findMove(board, depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                value = -findMove(board, depth - 1 - reduction, ply + 1,
+                                  -alpha - 1, -alpha);
+                if (value > alpha && reduction > 0 && !_aborted) {
+                    value = -findMove(board, depth - 1, ply + 1,
+                                      -alpha - 1, -alpha);
+                }
+                if (value > alpha && value < beta && !_aborted) {
+                    value = -findMove(board, depth - 1, ply + 1,
+                                      -beta, -alpha);
+                }
+            }
+            board.retract();
+            if (_aborted) {
+                return 0;
+            }
+            if (value > bestValue) {
+                bestValue = value;
+                bestMove = move;
+            }
+            if (value > alpha) {
+                alpha = value;
+                savePV(ply, move);
+            }
+            if (alpha >= beta) {
+                recordCutoff(board.turn(), move, depth, ply);
+                _cutoffs[Math.min(i, SearchStats.CUTOFF_BUCKETS - 1)] += 1;
+                break;
+            }
+        }
+        int bound = bestValue <= alpha0 ? TranspositionTable.UPPER
+            : bestValue >= beta ? TranspositionTable.LOWER
+            : TranspositionTable.EXACT;
+        _table.store(key, bestMove, depth, bound, toTable(bestValue, ply));
+        return bestValue;
+    }
+
+    /**
+     * Return true iff findMove should try a null move on BOARD at PLY
+     * with DEPTH moves left to search and lower bound BETA: null-move
+     * pruning is enabled, DEPTH leaves room for the reduced search, the
+     * previous move was not itself a null move, BOARD's static value is
+     * already at least BETA, and neither side is close to connecting
+     * its pieces (having fewer than NULL_MOVE_MIN_REGIONS regions), where
+     * giving up a move is most likely to matter.
+     */
+    private boolean tryNullMove(Board board, int depth, int ply, int beta) {
+        if (_nullMoveReduction == 0 || depth <= _nullMoveReduction
+            || ply == 0
+            || board.moveMade(board.movesMade() - 1) == Move.NO_MOVE) {
+            return false;
+        }
+        Piece side = board.turn();
+        return board.regionCount(side) >= NULL_MOVE_MIN_REGIONS
+            && board.regionCount(side.opposite()) >= NULL_MOVE_MIN_REGIONS
+            && evaluate(board) >= beta;
+    }
+
+    /**
+     * Return the value of position BOARD, PLY moves from the root of the
+     * search, for the side to move, as for findMove, searching only
+     * captures and moves that connect all the mover's pieces (see
+     * Board.tacticalMoves), up to DEPTH more moves deep.  The side to
+     * move may instead "stand pat", taking the static value of BOARD, so
+     * that the search stops as soon as the static value is at least
+     * BETA.  This keeps the static value from being used in the middle
+     * of an exchange of captures or just before a win.
+     */
+    private int quiesce(Board board, int depth, int ply,
+                        int alpha, int beta) {
+        _pvLength[ply] = 0;
+        _quiescenceNodes += 1;
+        if (outOfTime()) {
+            return 0;
+        }
+        Piece winner = board.winner();
+        if (winner != null) {
+            return winningValue(winner, board.turn(), ply);
+        }
+        int bestValue = evaluate(board);
+        if (bestValue >= beta || depth == 0) {
+            return bestValue;
+        }
+        alpha = Math.max(alpha, bestValue);
+        int[] moves = _moveStack[ply];
+        int[] scores = _scoreStack[ply];
+        int n = board.tacticalMoves(moves, 0);
+        scoreMoves(board.turn(), moves, scores, n, Move.NO_MOVE, ply);
+        for (int i = 0; i < n; i += 1) {
+            selectMove(moves, scores, i, n);
+            int move = moves[i];
+            board.makeMove(move);
+            int value = -quiesce(board, depth - 1, ply + 1, -beta, -alpha);
+            board.retract();
+            if (_aborted) {
+                return 0;
+            }
+            if (value > bestValue) {
+                bestValue = value;
+            }
+            if (value > alpha) {
+                alpha = value;
+                savePV(ply, move);
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return bestValue;
+    }
+
+    /** Make the principal variation at PLY packed move MOVE followed by
+     *  the principal variation at PLY + 1. */
+    private void savePV(int ply, int move) {
+        int[] line = _pv[ply];
+        line[0] = move;
+        int n = _pvLength[ply + 1];
+        System.arraycopy(_pv[ply + 1], 0, line, 1, n);
+        _pvLength[ply] = n + 1;
+    }
+
+    /**
+     * Set SCORES[0 .. N-1] to the priorities with which to search the
+     * packed moves MOVES[0 .. N-1] for SIDE at PLY: first TABLEMOVE
+     * (the best move found by an earlier search, if any), then captures,
+     * then the killer moves for PLY, then other moves in order of their
+     * history scores.
+     */
+    void scoreMoves(Piece side, int[] moves, int[] scores, int n,
+                    int tableMove, int ply) {
+        int[] history = _history[side.ordinal()];
+        int[] killers = _killers[ply];
+        for (int i = 0; i < n; i += 1) {
+            int move = Move.squares(moves[i]);
+            if (move == tableMove) {
+                scores[i] = TABLE_MOVE_SCORE;
+            } else if (Move.isCapture(moves[i])) {
+                scores[i] = CAPTURE_SCORE + history[move];
+            } else if (move == killers[0]) {
+                scores[i] = KILLER_SCORE;
+            } else if (move == killers[1]) {
+                scores[i] = KILLER_SCORE - 1;
+            } else {
+                scores[i] = history[move];
+            }
+        }
+    }
+
+    /**
+     * Swap the move with the highest score among MOVES[K .. N-1] (as
+     * given by SCORES) into MOVES[K], along with its score.  Selecting
+     * one move at a time is cheaper than sorting when a cutoff comes
+     * early.
+     */
+    static void selectMove(int[] moves, int[] scores, int k, int n) {
+        int best = k;
+        for (int i = k + 1; i < n; i += 1) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves[k], score = scores[k];
+        moves[k] = moves[best];
+        scores[k] = scores[best];
+        moves[best] = move;
+        scores[best] = score;
+    }
+
+    /**
+     * Record that packed move MOVE by SIDE caused a cutoff at PLY with
+     * DEPTH moves left to search, by making it a killer move for PLY and
+     * raising its history score, unless it is a capture (which is
+     * searched early anyway).
+     */
+    private void recordCutoff(Piece side, int move, int depth, int ply) {
+        if (Move.isCapture(move)) {
+            return;
+        }
+        move = Move.squares(move);
+        int[] killers = _killers[ply];
+        if (killers[0] != move) {
+            killers[1] = killers[0];
+            killers[0] = move;
+        }
+        int[] history = _history[side.ordinal()];
+        history[move] += depth * depth;
+        if (history[move] > MAX_HISTORY) {
+            ageHistory();
+        }
+    }
+
+    /** Halve all history scores, so that recent cutoffs count for more
+     *  than old ones, and clear the killer moves. */
+    private void ageHistory() {
+        for (int[] history : _history) {
+            for (int i = 0; i < history.length; i += 1) {
+                history[i] /= 2;
+            }
+        }
+        for (int[] killers : _killers) {
+            killers[0] = killers[1] = Move.NO_MOVE;
+        }
+    }
+
+    /**
+     * Return VALUE, found PLY moves into a search, in the form stored in
+     * _table: win and loss values are stored relative to the position
+     * itself rather than to the root of the search.  VALUE must be
+     * within +-WINNING_VALUE: the sentinels +-INFTY are never stored.
+     */
+    private static int toTable(int value, int ply) {
+        assert Math.abs(value) <= WINNING_VALUE;
+        if (value >= WINNING_VALUE - MAX_PLY) {
+            return value + ply;
+        } else if (value <= -WINNING_VALUE + MAX_PLY) {
+            return value - ply;
+        }
+        return value;
+    }
+
+    /** Return the inverse of toTable(VALUE, PLY). */
+    private static int fromTable(int value, int ply) {
+        if (value >= WINNING_VALUE - MAX_PLY) {
+            return value - ply;
+        } else if (value <= -WINNING_VALUE + MAX_PLY) {
+            return value + ply;
+        }
+        return value;
+    }
+
+    /**
+     * Return the value for SIDE of a finished game won by WINNER (EMP
+     * for a tie) after PLY moves of search, preferring quicker wins and
+     * slower losses.
+     */
+    private static int winningValue(Piece winner, Piece side, int ply) {
+        if (winner == side) {
+            return WINNING_VALUE - ply;
+        } else if (winner == side.opposite()) {
+            return -WINNING_VALUE + ply;
+        }
+        return 0;
+    }
+
+    /** Return the static value of BOARD for the side to move (see
+     *  Evaluator.evaluate), taken from my evaluation cache if it is
+     *  there. */
+    private int evaluate(Board board) {
+        return evaluate(board, board.zobristKey());
+    }
+
+    /** Return the static value of BOARD, whose Zobrist key is KEY, as
+     *  for evaluate(BOARD).  The cache is a direct-mapped table indexed
+     *  by KEY, each new value replacing whatever shared its slot. */
+    int evaluate(Board board, long key) {
+        int i = (int) key & (EVALUATION_CACHE_SIZE - 1);
+        _evaluationProbes += 1;
+        if (_evaluationKeys[i] == key) {
+            _evaluationHits += 1;
+            return _evaluationScores[i];
+        }
+        int score = Evaluator.evaluate(board, board.turn());
+        _evaluationKeys[i] = key;
+        _evaluationScores[i] = score;
+        return score;
+    }
+
+    /** Empty my evaluation cache, and note the version of the evaluation
+     *  weights its entries will use.  Each slot is given a key that
+     *  could not be stored there (it differs from the slot index in its
+     *  low bit), so that no key is found in an empty slot. */
+    private void clearEvaluations() {
+        for (int i = 0; i < EVALUATION_CACHE_SIZE; i += 1) {
+            _evaluationKeys[i] = i ^ 1;
+        }
+        _evaluatorVersion = Evaluator.version();
+    }
+
+    /**
+     * Count one more position searched, and return true iff the current
+     * search must be abandoned because it has used up its time or node
+     * budget or stop was called. The clock and the stop flag are read
+     * only every TIME_CHECK_INTERVAL positions.
+     */
+    private boolean outOfTime() {
+        _nodes += 1;
+        if (_limited && !_aborted
+            && (_nodes >= _maxNodes
+                || (_nodes % TIME_CHECK_INTERVAL == 0
+                    && (_stopped || System.nanoTime() >= _deadline)))) {
+            _aborted = true;
+        }
+        return _aborted;
+    }
+
+    /** Depth reduction for the search after a null move, or 0 for no
+     *  null-move pruning. */
+    private static int _nullMoveReduction = DEFAULT_NULL_MOVE_REDUCTION;
+    /** Depth reduction for late moves, or 0 for no late move
+     *  reductions. */
+    private static int _lateMoveReduction = DEFAULT_LATE_MOVE_REDUCTION;
+
+    /** True iff I report the progress of my searches. */
+    private boolean _reporting;
+    /** Results of searches, shared with other Searchers. */
+    private final TranspositionTable _table;
+
+    /** Best move (packed) found by the deepest search completed. */
+    private int _bestMove;
+    /** Depth of the deepest search completed. */
+    private int _completedDepth;
+    /** Principal variation (packed) found by the deepest search
+     *  completed. */
+    private int[] _bestLine = new int[0];
+    /** Number of positions visited since setPosition. */
+    private long _nodes;
+    /** Number of those positions visited by quiesce. */
+    private long _quiescenceNodes;
+    /** Number of transposition table probes since setPosition, and of
+     *  those that found an entry. */
+    private long _tableProbes, _tableHits;
+    /** Number of evaluation cache probes since setPosition, and of those
+     *  that found the position. */
+    private long _evaluationProbes, _evaluationHits;
+    /** Beta cutoffs since setPosition, indexed as for
+     *  SearchStats.cutoffs. */
+    private final long[] _cutoffs = new long[SearchStats.CUTOFF_BUCKETS];
+    /** Value of System.nanoTime() at which the current search must stop,
+     *  if _limited. */
+    private long _deadline;
+    /** Value of _nodes at which the current search must stop, if
+     *  _limited. */
+    private long _maxNodes;
+    /** True iff the current search is subject to _deadline, _maxNodes,
+     *  and _stopped. */
+    private boolean _limited;
+    /** True iff the current search was cut short. */
+    private boolean _aborted;
+    /** True iff stop has been called since setPosition. */
+    private volatile boolean _stopped;
+
+    /** Keys of the positions in my evaluation cache, and their static
+     *  values, indexed by the low bits of the key. */
+    private final long[] _evaluationKeys = new long[EVALUATION_CACHE_SIZE];
+    /** See _evaluationKeys. */
+    private final int[] _evaluationScores = new int[EVALUATION_CACHE_SIZE];
+    /** Value of Evaluator.version() when the entries of my evaluation
+     *  cache were computed. */
+    private int _evaluatorVersion;
+
+    /** The board on which searches are done, so that a new one need not
+     *  be created for each move. */
+    private final Board _work = new Board();
+
+    /** _pv[P][0 .. _pvLength[P]-1] is the principal variation (packed)
+     *  found by the latest call to findMove at ply P. */
+    private final int[][] _pv = new int[MAX_PLY + 2][MAX_PLY + 1];
+    /** Lengths of the principal variations in _pv. */
+    private final int[] _pvLength = new int[MAX_PLY + 2];
+
+    /** Move buffers for findMove, indexed by ply, so
+     *  that move generation allocates nothing during a search. */
+    private final int[][] _moveStack = new int[MAX_PLY + 1][MAX_MOVES];
+    /** Move ordering scores for the moves in _moveStack. */
+    private final int[][] _scoreStack = new int[MAX_PLY + 1][MAX_MOVES];
+    /** Two most recent non-capturing moves (as Move.squares) that caused
+     *  cutoffs, indexed by ply. */
+    private final int[][] _killers = new int[MAX_PLY + 1][2];
+    /** History scores for each side (indexed by ordinal) and each move
+     *  (indexed by Move.squares), raised each time the move causes a
+     *  cutoff. */
+    private final int[][] _history = new int[2][Move.NUM_SQUARE_PAIRS];
+
+}
@@ -0,0 +1,104 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+import static loa.Piece.*;
+
+/**
+ * Tests of the Searcher class.
+ *
+ * @author Israel Rodriguez
+ */
+public class SearcherTest {
+
+    /** Test that, once a search has filled in the killer moves and
+     *  history scores, whatever move the transposition table suggests
+     *  is still searched first, at each ply of the principal
+     *  variation. */
+    @Test
+    public void testTableMoveFirst() {
+        Searcher searcher = new Searcher(new TranspositionTable(1));
+        Board board = new Board(BoardTest.BOARD1, BP);
+        searcher.setPosition(board);
+        searcher.searchToDepth(4);
+        int[] all = new int[Board.MAX_MOVES];
+        int[] moves = new int[Board.MAX_MOVES];
+        int[] scores = new int[Board.MAX_MOVES];
+        List<Move> line = searcher.principalVariation();
+        assertFalse(line.isEmpty());
+        for (int ply = 0; ply < line.size(); ply += 1) {
+            int n = board.legalMoves(all, 0);
+            for (int i = 0; i < n; i += 1) {
+                int tableMove = Move.squares(all[i]);
+                System.arraycopy(all, 0, moves, 0, n);
+                searcher.scoreMoves(board.turn(), moves, scores, n,
+                                    tableMove, ply);
+                Searcher.selectMove(moves, scores, 0, n);
+                assertEquals(tableMove, Move.squares(moves[0]));
+            }
+            board.makeMove(line.get(ply));
+        }
+    }
+
+    /** Test that evaluations taken from the cache equal fresh ones as
+     *  moves are made and retracted, and after the weights change. */
+    @Test
+    public void testEvaluationCache() {
+        Searcher searcher = new Searcher(new TranspositionTable(1));
+        Random random = new Random(5);
+        Board board = new Board(BoardTest.BOARD1, BP);
+        searcher.setPosition(board);
+        for (int k = 0; k < 40 && !board.gameOver(); k += 1) {
+            List<Move> moves = board.legalMoves();
+            board.makeMove(moves.get(random.nextInt(moves.size())));
+            assertCached(searcher, board);
+            if (k % 2 == 1) {
+                board.retract();
+                assertCached(searcher, board);
+            }
+        }
+        SearchStats stats = new SearchStats(1);
+        searcher.addStats(stats);
+        assertTrue(stats.evaluationHits() > 0);
+
+        int[] weights = Evaluator.weights();
+        try {
+            Evaluator.setWeights(new int[] { 1, 2, 3, 4, 5, 6 });
+            searcher.setPosition(board);
+            assertCached(searcher, board);
+        } finally {
+            Evaluator.setWeights(weights);
+        }
+    }
+
+    /** Test that no key, including 0, is found in an empty slot of the
+     *  cache. */
+    @Test
+    public void testEmptyEvaluationCache() {
+        Board board = new Board(BoardTest.BOARD1, BP);
+        int value = Evaluator.evaluate(board, BP);
+        assertNotEquals(0, value);
+        for (long key = 0; key < 4; key += 1) {
+            Searcher searcher = new Searcher(new TranspositionTable(1));
+            assertEquals(value, searcher.evaluate(board, key));
+            assertEquals(value, searcher.evaluate(board, key));
+        }
+    }
+
+    /** Assert that SEARCHER's evaluation of BOARD, before and after it
+     *  is cached, equals a fresh one. */
+    private static void assertCached(Searcher searcher, Board board) {
+        int value = Evaluator.evaluate(board, board.turn());
+        long key = board.zobristKey();
+        assertEquals(value, searcher.evaluate(board, key));
+        assertEquals(value, searcher.evaluate(board, key));
+    }
+
+}
@@ -0,0 +1,205 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static loa.Board.MAX_MOVES;
+
+/** A search for forced wins by threats.  The side to move (the
+ *  attacker) wins in one move if it has a move that connects its pieces.
+ *  It wins in N > 1 moves if it has a move that threatens such a win
+ *  (so that it would connect on its next move if its opponent passed)
+ *  after which every reply loses to a win in N - 1.  Only threatening
+ *  moves are tried for the attacker, which keeps the tree narrow enough
+ *  to search several moves deep, where the full search sees only a few.
+ *  The defender's replies are not restricted, so every win found is
+ *  real; but a win that needs a quiet move along the way is not found.
+ *  @author Israel Rodriguez
+ */
+class ThreatSearcher {
+
+    /** Longest win (in the attacker's moves) that findWin looks for. */
+    static final int MAX_WIN_LENGTH = 5;
+    /** Number of positions searched between checks of the clock. */
+    private static final int TIME_CHECK_INTERVAL = 1024;
+    /** Greatest depth in plies of any position searched. */
+    private static final int MAX_PLY = 2 * MAX_WIN_LENGTH;
+
+    /** Return the moves of a win for the side to move on BOARD in at
+     *  most MAXLENGTH <= MAX_WIN_LENGTH of its moves, starting with the
+     *  attacker's first move and alternating with one reply the
+     *  defender might make, or null if none is found within NANOS
+     *  nanoseconds.  The win found is one of the shortest.  BOARD is
+     *  unchanged. */
+    List<Move> findWin(Board board, int maxLength, long nanos) {
+        return findWin(board, maxLength, nanos, 0);
+    }
+
+    /** Return a win as for findWin(BOARD, MAXLENGTH, NANOS), giving up
+     *  also after NODES positions if NODES > 0. */
+    List<Move> findWin(Board board, int maxLength, long nanos, long nodes) {
+        _work.copyPosition(board);
+        _attacker = board.turn();
+        _deadline = System.nanoTime() + nanos;
+        _maxNodes = nodes > 0 ? nodes : Long.MAX_VALUE;
+        _nodes = 0;
+        _aborted = false;
+        if (_work.gameOver()) {
+            return null;
+        }
+        for (int length = 1; length <= maxLength && !_aborted;
+             length += 1) {
+            if (attack(_work, length, 0)) {
+                List<Move> line = new ArrayList<>();
+                for (int i = 0; i < _pvLength[0]; i += 1) {
+                    line.add(Move.mv(_pv[0][i]));
+                }
+                return line;
+            }
+        }
+        return null;
+    }
+
+    /** Return the number of positions searched by the last findWin. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return true iff the attacker, to move on BOARD at PLY, can win in
+     *  at most LENGTH of its moves, making only threats, and if so, set
+     *  the line at PLY (see _pv) to such a win.  Returns false if the
+     *  search runs out of time. */
+    private boolean attack(Board board, int length, int ply) {
+        if (outOfTime()) {
+            return false;
+        }
+        int win = winningMove(board, ply);
+        if (win != Move.NO_MOVE) {
+            _pv[ply][ply] = win;
+            _pvLength[ply] = ply + 1;
+            return true;
+        }
+        if (length == 1) {
+            return false;
+        }
+        int[] moves = _moves[ply];
+        int n = board.legalMoves(moves, 0);
+        for (int i = 0; i < n; i += 1) {
+            board.makeMove(moves[i]);
+            boolean won = board.winner() == null && threatens(board, ply)
+                && defend(board, length - 1, ply + 1);
+            board.retract();
+            if (won) {
+                savePV(ply, moves[i]);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Return true iff every move of the defender, to move on BOARD at
+     *  PLY, loses to a win by the attacker in at most LENGTH moves, and
+     *  if so, set the line at PLY to the last reply and its refutation.
+     *  Returns false if the search runs out of time. */
+    private boolean defend(Board board, int length, int ply) {
+        int[] moves = _moves[ply];
+        int n = board.legalMoves(moves, 0);
+        if (n == 0) {
+            return false;
+        }
+        for (int i = 0; i < n; i += 1) {
+            board.makeMove(moves[i]);
+            Piece winner = board.winner();
+            boolean lost;
+            if (winner == null) {
+                lost = attack(board, length, ply + 1);
+            } else {
+                lost = winner == _attacker;
+                _pvLength[ply + 1] = ply + 1;
+            }
+            board.retract();
+            if (!lost) {
+                return false;
+            }
+        }
+        savePV(ply, moves[n - 1]);
+        return true;
+    }
+
+    /** Return true iff the attacker, having just moved on BOARD at PLY,
+     *  would have a winning move if the defender passed. */
+    private boolean threatens(Board board, int ply) {
+        board.makeNullMove();
+        boolean threat = winningMove(board, ply + 1) != Move.NO_MOVE;
+        board.retract();
+        return threat;
+    }
+
+    /** Return a move (packed) that wins at once for the side to move on
+     *  BOARD at PLY, or Move.NO_MOVE if there is none.  Only captures and
+     *  moves that connect the mover's pieces (see Board.tacticalMoves)
+     *  can do so. */
+    private int winningMove(Board board, int ply) {
+        int[] moves = _tacticalMoves[ply];
+        int n = board.tacticalMoves(moves, 0);
+        Piece mover = board.turn();
+        for (int i = 0; i < n; i += 1) {
+            board.makeMove(moves[i]);
+            boolean wins = board.winner() == mover;
+            board.retract();
+            if (wins) {
+                return moves[i];
+            }
+        }
+        return Move.NO_MOVE;
+    }
+
+    /** Set the line at PLY to MOVE followed by the line at PLY + 1. */
+    private void savePV(int ply, int move) {
+        _pv[ply][ply] = move;
+        for (int k = ply + 1; k < _pvLength[ply + 1]; k += 1) {
+            _pv[ply][k] = _pv[ply + 1][k];
+        }
+        _pvLength[ply] = _pvLength[ply + 1];
+    }
+
+    /** Count one more position searched, and return true iff the search
+     *  has used up its time or node budget.  The clock is read only
+     *  every TIME_CHECK_INTERVAL positions. */
+    private boolean outOfTime() {
+        _nodes += 1;
+        if (!_aborted
+            && (_nodes >= _maxNodes
+                || (_nodes % TIME_CHECK_INTERVAL == 0
+                    && System.nanoTime() >= _deadline))) {
+            _aborted = true;
+        }
+        return _aborted;
+    }
+
+    /** The side whose win is sought. */
+    private Piece _attacker;
+    /** Value of System.nanoTime() at which the search must stop. */
+    private long _deadline;
+    /** Number of positions after which the current search must stop. */
+    private long _maxNodes;
+    /** Number of positions searched by the current search. */
+    private long _nodes;
+    /** True iff the current search has run out of time. */
+    private boolean _aborted;
+
+    /** The board on which searches are done. */
+    private final Board _work = new Board();
+    /** _pv[P][P .. _pvLength[P]-1] is the line (packed) found at ply P,
+     *  as for Searcher. */
+    private final int[][] _pv = new int[MAX_PLY + 2][MAX_PLY + 2];
+    /** Lengths of the lines in _pv. */
+    private final int[] _pvLength = new int[MAX_PLY + 2];
+    /** Move buffers, indexed by ply. */
+    private final int[][] _moves = new int[MAX_PLY + 1][MAX_MOVES];
+    /** Buffers for winningMove, indexed by ply. */
+    private final int[][] _tacticalMoves = new int[MAX_PLY + 2][MAX_MOVES];
+
+}
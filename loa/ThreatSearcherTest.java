@@ -0,0 +1,109 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+import static loa.Piece.*;
+import static loa.Move.mv;
+
+/**
+ * Tests of the ThreatSearcher class.
+ *
+ * @author Israel Rodriguez
+ */
+public class ThreatSearcherTest {
+
+    /** A position in which black, to move, wins in two moves with h3-g4
+     *  (threatening c3-d4), but not in one. */
+    static final Piece[][] WIN_IN_TWO = {
+            { EMP, EMP, EMP, EMP, EMP, EMP, EMP, EMP },
+            { WP, EMP, EMP, EMP, EMP, WP, EMP, WP },
+            { EMP, WP, BP, WP, BP, BP, EMP, BP },
+            { EMP, EMP, EMP, EMP, EMP, EMP, EMP, EMP },
+            { WP, EMP, BP, EMP, EMP, EMP, EMP, WP },
+            { EMP, WP, EMP, BP, EMP, EMP, EMP, EMP },
+            { WP, EMP, EMP, EMP, EMP, EMP, EMP, EMP },
+            { EMP, EMP, EMP, EMP, EMP, EMP, EMP, EMP },
+    };
+
+    /** A position in which black, to move, has no win by threats in
+     *  three moves or fewer. */
+    static final Piece[][] NO_WIN = {
+            { EMP, EMP, EMP, EMP, EMP, EMP, EMP, EMP },
+            { EMP, EMP, WP, WP, EMP, BP, BP, BP },
+            { EMP, EMP, BP, BP, BP, WP, EMP, EMP },
+            { EMP, WP, EMP, WP, EMP, EMP, EMP, BP },
+            { EMP, WP, EMP, EMP, EMP, EMP, EMP, EMP },
+            { EMP, EMP, EMP, EMP, EMP, EMP, EMP, EMP },
+            { EMP, BP, BP, EMP, EMP, EMP, EMP, EMP },
+            { EMP, EMP, WP, EMP, WP, EMP, EMP, EMP },
+    };
+
+    /** Time allowed for each search, in nanoseconds: enough that no
+     *  search here runs out. */
+    static final long NANOS = 60_000_000_000L;
+
+    /** Test that a win in one is found. */
+    @Test
+    public void testWinInOne() {
+        Board board = new Board(MachinePlayerTest.WIN_IN_ONE, BP);
+        List<Move> line = new ThreatSearcher().findWin(board, 1, NANOS);
+        assertEquals(List.of(mv("b6-d4")), line);
+        assertEquals(new Board(MachinePlayerTest.WIN_IN_ONE, BP), board);
+        assertWins(board, line);
+    }
+
+    /** Test that a win in two is found only when two moves are allowed,
+     *  and that every reply to its first move loses at once. */
+    @Test
+    public void testWinInTwo() {
+        Board board = new Board(WIN_IN_TWO, BP);
+        ThreatSearcher searcher = new ThreatSearcher();
+        assertNull(searcher.findWin(board, 1, NANOS));
+        List<Move> line = searcher.findWin(board, 2, NANOS);
+        assertEquals(3, line.size());
+        assertEquals(mv("h3-g4"), line.get(0));
+        assertEquals(new Board(WIN_IN_TWO, BP), board);
+        assertWins(board, line);
+        board.makeMove(line.get(0));
+        for (Move reply : board.legalMoves()) {
+            board.makeMove(reply);
+            assertNotNull(reply.toString(),
+                          searcher.findWin(board, 1, NANOS));
+            board.retract();
+        }
+    }
+
+    /** Test that no win is reported where there is none, or when the
+     *  game is already over. */
+    @Test
+    public void testNoWin() {
+        ThreatSearcher searcher = new ThreatSearcher();
+        Board board = new Board(NO_WIN, BP);
+        assertNull(searcher.findWin(board, 3, NANOS));
+        assertEquals(new Board(NO_WIN, BP), board);
+        board = new Board(MachinePlayerTest.WIN_IN_ONE, BP);
+        board.makeMove(mv("b6-d4"));
+        assertNull(searcher.findWin(board, 1, NANOS));
+    }
+
+    /** Assert that LINE is a legal line of play from BOARD that ends in
+     *  a win for the side to move on BOARD. */
+    private static void assertWins(Board board, List<Move> line) {
+        Board copy = new Board();
+        copy.copyFrom(board);
+        Piece attacker = board.turn();
+        for (Move move : line) {
+            assertFalse(copy.gameOver());
+            assertTrue(move.toString(), copy.isLegal(move));
+            copy.makeMove(move);
+        }
+        assertEquals(attacker, copy.winner());
+    }
+
+}
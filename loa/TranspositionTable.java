@@ -0,0 +1,151 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import java.util.Arrays;
+
+/** A fixed-size hash table of search results, indexed by the Zobrist
+ *  keys of positions (see Board.zobristKey).  Each entry records the
+ *  depth to which a position was searched, its value and whether that
+ *  value is exact or a bound, and the best move found.  When two
+ *  positions map to the same slot, the one searched more deeply is
+ *  kept, unless the other comes from an earlier search (see newSearch).
+ *
+ *  Entries are returned as single packed longs, decoded by the static
+ *  methods move, depth, bound, and score, so that probing allocates
+ *  nothing.  A packed entry of NONE means that there is no entry.
+ *  @author Israel Rodriguez
+ */
+class TranspositionTable {
+
+    /** A packed entry denoting no entry. */
+    static final long NONE = 0;
+
+    /** Bound types: the stored score is exact, a lower bound on the
+     *  true value, or an upper bound on it. */
+    static final int EXACT = 1, LOWER = 2, UPPER = 3;
+
+    /** Default table size in megabytes. */
+    static final int DEFAULT_MEGABYTES = 16;
+
+    /** A table occupying at most MEGABYTES (> 0) megabytes. */
+    TranspositionTable(int megabytes) {
+        long entries = Long.highestOneBit(Math.max(1L, (long) megabytes
+                                                   * BYTES_PER_MEGABYTE
+                                                   / BYTES_PER_ENTRY));
+        entries = Math.min(entries, MAX_ENTRIES);
+        _mask = (int) entries - 1;
+        _checks = new long[(int) entries];
+        _data = new long[(int) entries];
+    }
+
+    /** Return the number of entries I can hold. */
+    int capacity() {
+        return _data.length;
+    }
+
+    /** Remove all entries. */
+    void clear() {
+        Arrays.fill(_checks, 0);
+        Arrays.fill(_data, 0);
+        _generation = 0;
+    }
+
+    /** Mark the start of a new search, so that entries stored by
+     *  earlier searches are replaced in preference to newer ones. */
+    void newSearch() {
+        _generation = (_generation + 1) & GENERATION_MASK;
+    }
+
+    /** Return the packed entry for the position with Zobrist key KEY, or
+     *  NONE if there is none. */
+    long probe(long key) {
+        int i = (int) key & _mask;
+        long data = _data[i];
+        if (data != NONE && (_checks[i] ^ data) == key) {
+            return data;
+        }
+        return NONE;
+    }
+
+    /** Record that the position with Zobrist key KEY was searched to
+     *  DEPTH (0 <= DEPTH <= MAX_DEPTH), giving SCORE, which is a bound of
+     *  type BOUND (EXACT, LOWER, or UPPER), with best move MOVE (packed,
+     *  or Move.NO_MOVE if none). */
+    void store(long key, int move, int depth, int bound, int score) {
+        int i = (int) key & _mask;
+        long old = _data[i];
+        boolean sameKey = old != NONE && (_checks[i] ^ old) == key;
+        if (old != NONE && !sameKey && generation(old) == _generation
+            && depth(old) > depth) {
+            return;
+        }
+        if (move == Move.NO_MOVE && sameKey) {
+            move = move(old);
+        }
+        long data = ((long) score << SCORE_SHIFT)
+            | ((long) _generation << GENERATION_SHIFT)
+            | ((long) bound << BOUND_SHIFT)
+            | ((long) depth << DEPTH_SHIFT)
+            | Move.squares(move);
+        _checks[i] = key ^ data;
+        _data[i] = data;
+    }
+
+    /** Return the best move (packed) in packed entry ENTRY. */
+    static int move(long entry) {
+        return (int) entry & MOVE_MASK;
+    }
+
+    /** Return the search depth in packed entry ENTRY. */
+    static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & DEPTH_MASK;
+    }
+
+    /** Return the bound type in packed entry ENTRY. */
+    static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & BOUND_MASK;
+    }
+
+    /** Return the score in packed entry ENTRY. */
+    static int score(long entry) {
+        return (int) (entry >> SCORE_SHIFT);
+    }
+
+    /** Return the search generation in packed entry ENTRY. */
+    static int generation(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+
+    /* Layout of a packed entry: bits 0-11 hold the move's squares, bits
+     * 12-18 the depth, bits 19-20 the bound type (never 0 in a real
+     * entry), bits 21-28 the generation, and bits 32-63 the score. */
+
+    /** Masks and shifts for the fields of a packed entry. */
+    private static final int
+        MOVE_MASK = Move.NUM_SQUARE_PAIRS - 1,
+        DEPTH_SHIFT = 12, DEPTH_MASK = 0x7f,
+        BOUND_SHIFT = 19, BOUND_MASK = 0x3,
+        GENERATION_SHIFT = 21, GENERATION_MASK = 0xff,
+        SCORE_SHIFT = 32;
+
+    /** Bytes in a megabyte. */
+    private static final long BYTES_PER_MEGABYTE = 1L << 20;
+    /** Bytes used by each entry. */
+    private static final long BYTES_PER_ENTRY = 16;
+    /** Largest number of entries (limited by the maximum array size). */
+    private static final long MAX_ENTRIES = 1L << 30;
+
+    /** Mask giving the slot for a key. */
+    private final int _mask;
+    /** _checks[I] is the key of the position in slot I XORed with
+     *  _data[I].  Storing the key this way means that a torn update of a
+     *  slot is detected as a miss rather than returning another
+     *  position's data. */
+    private final long[] _checks;
+    /** _data[I] is the packed entry in slot I, or NONE. */
+    private final long[] _data;
+    /** The current search generation. */
+    private int _generation;
+
+}
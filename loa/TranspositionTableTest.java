@@ -0,0 +1,108 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import static loa.TranspositionTable.*;
+
+/**
+ * Tests of the TranspositionTable class.
+ *
+ * @author Israel Rodriguez
+ */
+public class TranspositionTableTest {
+
+    /** A Zobrist key. */
+    static final long KEY = 0x123456789abcdefL;
+
+    /** Return the squares of the move described by S (as by Move.mv). */
+    private static int squares(String s) {
+        return Move.squares(Move.mv(s).pack());
+    }
+
+    /** Test the layout of a packed entry: bits 0-11 the move, 12-18 the
+     *  depth, 19-20 the bound, 21-28 the generation, and 32-63 the
+     *  score. */
+    @Test
+    public void testLayout() {
+        TranspositionTable table = new TranspositionTable(1);
+        for (int i = 0; i < 3; i += 1) {
+            table.newSearch();
+        }
+        int move = squares("f3-d5");
+        table.store(KEY, Move.mv("f3-d5").pack(), 5, LOWER, 1000);
+        long entry = table.probe(KEY);
+        assertEquals((1000L << 32) | (3L << 21) | ((long) LOWER << 19)
+                     | (5L << 12) | move, entry);
+        assertEquals(move, move(entry));
+        assertEquals(5, depth(entry));
+        assertEquals(LOWER, bound(entry));
+        assertEquals(3, generation(entry));
+        assertEquals(1000, score(entry));
+    }
+
+    /** Test that negative and extreme scores, and the largest depth,
+     *  come back unchanged. */
+    @Test
+    public void testNegativeScores() {
+        TranspositionTable table = new TranspositionTable(1);
+        int[] scores = {
+            -1, -1000, Searcher.WINNING_VALUE, -Searcher.WINNING_VALUE
+        };
+        for (int score : scores) {
+            table.store(KEY, Move.NO_MOVE, Searcher.MAX_DEPTH, UPPER, score);
+            long entry = table.probe(KEY);
+            assertEquals(score, score(entry));
+            assertEquals(Searcher.MAX_DEPTH, depth(entry));
+            assertEquals(UPPER, bound(entry));
+            assertEquals(Move.NO_MOVE, move(entry));
+        }
+    }
+
+    /** Test that a probe misses when the slot holds a different
+     *  position, or a corrupted entry. */
+    @Test
+    public void testCollisions() {
+        TranspositionTable table = new TranspositionTable(1);
+        long other = KEY + table.capacity();
+        assertEquals(NONE, table.probe(KEY));
+        table.store(KEY, Move.NO_MOVE, 4, EXACT, 17);
+        assertEquals(17, score(table.probe(KEY)));
+        assertEquals(NONE, table.probe(other));
+        table.store(other, Move.NO_MOVE, 4, EXACT, 23);
+        assertEquals(NONE, table.probe(KEY));
+        assertEquals(23, score(table.probe(other)));
+        table.clear();
+        assertEquals(NONE, table.probe(other));
+    }
+
+    /** Test which entry is kept when two positions share a slot: the
+     *  deeper one within a search, the newer one across searches, and
+     *  the newer one for the same position, keeping its move if the new
+     *  result has none. */
+    @Test
+    public void testReplacement() {
+        TranspositionTable table = new TranspositionTable(1);
+        long other = KEY + table.capacity();
+        table.store(KEY, Move.mv("f3-d5").pack(), 6, EXACT, 1);
+        table.store(other, Move.NO_MOVE, 5, EXACT, 2);
+        assertEquals(1, score(table.probe(KEY)));
+        table.store(other, Move.NO_MOVE, 6, EXACT, 3);
+        assertEquals(3, score(table.probe(other)));
+        table.store(KEY, Move.NO_MOVE, 7, EXACT, 4);
+        assertEquals(4, score(table.probe(KEY)));
+        table.newSearch();
+        table.store(other, Move.NO_MOVE, 1, EXACT, 5);
+        assertEquals(5, score(table.probe(other)));
+        table.store(other, Move.mv("f3-d5").pack(), 2, LOWER, 6);
+        table.store(other, Move.NO_MOVE, 1, UPPER, 7);
+        long entry = table.probe(other);
+        assertEquals(7, score(entry));
+        assertEquals(1, depth(entry));
+        assertEquals(squares("f3-d5"), move(entry));
+    }
+
+}
@@ -0,0 +1,219 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import ucb.util.CommandArgs;
+
+import static loa.Piece.*;
+
+/** Fits the weights of the evaluation function (see Evaluator) to the
+ *  outcomes of recorded games ("Texel tuning").  Usage:
+ *
+ *      java loa.Tuner [ --passes=N ] [ --skip=N ] WEIGHTS LOG ...
+ *
+ *  Every position after the first N plies (default 4) of each decided
+ *  game in the LOG files (as written by "java loa.Main --log=LOG") is
+ *  taken as a sample, labeled 1 if black went on to win and 0 if white
+ *  did.  The predicted outcome of a sample is sigmoid(K * E), where E is
+ *  its evaluation for black and K a scale fitted once to the starting
+ *  weights.  The weights are then adjusted one at a time, in steps of
+ *  1, for at most N passes (default 100) over all of them, keeping each
+ *  change that lowers the mean squared error of the predictions.  The
+ *  result is written to the file WEIGHTS, to be used with
+ *  "java loa.Main --weights=WEIGHTS".  The starting weights are those
+ *  in WEIGHTS if it exists, and the default weights otherwise.
+ *
+ *  The features of the samples are computed once, in parallel across
+ *  games, and each error is computed in parallel across samples.
+ *  @author Israel Rodriguez
+ */
+class Tuner {
+
+    /** Default number of passes over the weights. */
+    static final int DEFAULT_PASSES = 100;
+    /** Default number of plies at the start of each game skipped. */
+    static final int DEFAULT_SKIP = 4;
+    /** Smallest and largest scales tried, and the factor between
+     *  successive scales tried, when fitting the scale. */
+    private static final double
+        MIN_SCALE = 1e-4, MAX_SCALE = 1.0, SCALE_STEP = 1.1;
+
+    /** Tune the weights as described by ARGS (see the class comment). */
+    public static void main(String... args) {
+        CommandArgs options =
+            new CommandArgs("--passes=(\\d+){0,1} --skip=(\\d+){0,1} "
+                            + "--=(.*){2,}", args);
+        if (!options.ok()) {
+            System.err.println("Usage: java loa.Tuner [ --passes=N ] "
+                               + "[ --skip=N ] WEIGHTS LOG ...");
+            System.exit(1);
+        }
+        int passes = options.contains("--passes")
+            ? options.getInt("--passes") : DEFAULT_PASSES;
+        int skip = options.contains("--skip")
+            ? options.getInt("--skip") : DEFAULT_SKIP;
+        List<String> files = options.get("--");
+        String weightsFile = files.get(0);
+        Utils.setMessageLevel(1);
+
+        try {
+            int[] weights = Evaluator.DEFAULT_WEIGHTS;
+            if (new File(weightsFile).exists()) {
+                weights = Evaluator.readWeights(weightsFile);
+            }
+            List<Board> games = new ArrayList<>();
+            for (String log : files.subList(1, files.size())) {
+                games.addAll(GameLog.readGames(log));
+            }
+            Tuner tuner = new Tuner(games, skip);
+            System.out.printf("%d samples from %d games%n", tuner.size(),
+                              games.size());
+            if (tuner.size() == 0) {
+                System.exit(1);
+            }
+            weights = tuner.tune(weights, passes);
+            Evaluator.writeWeights(weightsFile, weights,
+                                   String.format("tuned on %d samples, "
+                                                 + "error %.6f",
+                                                 tuner.size(),
+                                                 tuner.error(weights)));
+        } catch (IOException excp) {
+            System.err.printf("Could not tune weights: %s%n",
+                              excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** A Tuner whose samples are the positions after the first SKIP
+     *  plies of the decided GAMES, each a Board on which the game's
+     *  moves have been made. */
+    Tuner(List<Board> games, int skip) {
+        List<int[][]> features =
+            games.parallelStream().map(g -> gameFeatures(g, skip))
+            .collect(Collectors.toList());
+        int n = 0;
+        for (int g = 0; g < games.size(); g += 1) {
+            n += features.get(g).length;
+        }
+        _features = new int[n][];
+        _outcomes = new double[n];
+        int k = 0;
+        for (int g = 0; g < games.size(); g += 1) {
+            double outcome = games.get(g).winner() == BP ? 1.0 : 0.0;
+            for (int[] sample : features.get(g)) {
+                _features[k] = sample;
+                _outcomes[k] = outcome;
+                k += 1;
+            }
+        }
+    }
+
+    /** Return the number of samples. */
+    int size() {
+        return _features.length;
+    }
+
+    /** Return weights fitted to the samples, starting from WEIGHTS, in at
+     *  most PASSES passes (see the class comment), reporting the error
+     *  after each pass at debug level 1. */
+    int[] tune(int[] weights, int passes) {
+        weights = weights.clone();
+        fitScale(weights);
+        double best = error(weights);
+        Utils.debug(1, "scale %.6f, error %.6f, weights %s", _scale, best,
+                    Arrays.toString(weights));
+        for (int pass = 1; pass <= passes; pass += 1) {
+            boolean improved = false;
+            for (int f = 0; f < weights.length; f += 1) {
+                for (int step : new int[] { 1, -1 }) {
+                    weights[f] += step;
+                    double error = error(weights);
+                    if (error < best) {
+                        best = error;
+                        improved = true;
+                        break;
+                    }
+                    weights[f] -= step;
+                }
+            }
+            Utils.debug(1, "pass %d: error %.6f, weights %s", pass, best,
+                        Arrays.toString(weights));
+            if (!improved) {
+                break;
+            }
+        }
+        return weights;
+    }
+
+    /** Return the mean squared error of the predicted outcomes of the
+     *  samples under WEIGHTS. */
+    double error(int[] weights) {
+        double scale = _scale;
+        double sum = IntStream.range(0, _features.length).parallel()
+            .mapToDouble(i -> {
+                int[] sample = _features[i];
+                long value = 0;
+                for (int f = 0; f < sample.length; f += 1) {
+                    value += (long) weights[f] * sample[f];
+                }
+                double predicted = 1.0 / (1.0 + Math.exp(-scale * value));
+                double diff = _outcomes[i] - predicted;
+                return diff * diff;
+            }).sum();
+        return sum / _features.length;
+    }
+
+    /** Set _scale to the value that minimizes error(WEIGHTS), among
+     *  those from MIN_SCALE to MAX_SCALE in ratios of SCALE_STEP. */
+    private void fitScale(int[] weights) {
+        double bestScale = MIN_SCALE, best = Double.MAX_VALUE;
+        for (double scale = MIN_SCALE; scale <= MAX_SCALE;
+             scale *= SCALE_STEP) {
+            _scale = scale;
+            double error = error(weights);
+            if (error < best) {
+                best = error;
+                bestScale = scale;
+            }
+        }
+        _scale = bestScale;
+    }
+
+    /** Return the features (for black, see Evaluator.features) of the
+     *  positions after the first SKIP plies of GAME, which is a Board on
+     *  which the game's moves have been made, or none if the game was
+     *  not won by either side. */
+    private static int[][] gameFeatures(Board game, int skip) {
+        Piece winner = game.winner();
+        if (winner != BP && winner != WP) {
+            return new int[0][];
+        }
+        List<int[]> samples = new ArrayList<>();
+        Board replay = new Board();
+        for (int i = 0; i < game.movesMade(); i += 1) {
+            if (i >= skip) {
+                int[] sample = new int[Evaluator.NUM_FEATURES];
+                Evaluator.features(replay, BP, sample);
+                samples.add(sample);
+            }
+            replay.makeMove(game.moveMade(i));
+        }
+        return samples.toArray(new int[0][]);
+    }
+
+    /** The features of each sample. */
+    private final int[][] _features;
+    /** The outcome of each sample: 1 for a black win, 0 for white. */
+    private final double[] _outcomes;
+    /** Scale applied to evaluations to get predictions. */
+    private double _scale = 1.0;
+
+}
@@ -0,0 +1,106 @@
+/* Skeleton Copyright (C) 2015, 2020 Paul N. Hilfinger and the Regents of the
+ * University of California.  All rights reserved. */
+package loa;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the Tuner class and of reading and writing weights.
+ *
+ * @author Israel Rodriguez
+ */
+public class TunerTest {
+
+    /** Return the name of a new temporary file, deleted on exit. */
+    private static String tempFile() throws IOException {
+        File file = File.createTempFile("weights", ".txt");
+        file.deleteOnExit();
+        return file.getPath();
+    }
+
+    /** Test that weights written to a file are read back unchanged, and
+     *  that malformed files are rejected. */
+    @Test
+    public void testWeightsFile() throws IOException {
+        String fileName = tempFile();
+        int[] weights = { 7, -3, 0, 31, 1, 12 };
+        Evaluator.writeWeights(fileName, weights, "a test");
+        assertArrayEquals(weights, Evaluator.readWeights(fileName));
+        String[][] bad = {
+            { "concentration 1" },
+            { "concentration 1", "concentration 2" },
+            { "concentration x" },
+            { "speed 1" },
+        };
+        for (String[] lines : bad) {
+            try (PrintStream out = new PrintStream(fileName)) {
+                for (String line : lines) {
+                    out.println(line);
+                }
+            }
+            try {
+                Evaluator.readWeights(fileName);
+                fail("accepted " + String.join(" / ", lines));
+            } catch (IOException excp) {
+                /* Expected. */
+            }
+        }
+    }
+
+    /** Test that one pass of tuning on the positions of a few quick
+     *  games changes each weight by at most 1 and does not increase the
+     *  error. */
+    @Test
+    public void testTune() {
+        Random random = new Random(1);
+        List<Board> games = new ArrayList<>();
+        for (int g = 0; g < 8; g += 1) {
+            games.add(playGame(random));
+        }
+        Tuner tuner = new Tuner(games, Tuner.DEFAULT_SKIP);
+        assertTrue(tuner.size() > 0);
+        int[] start = Evaluator.DEFAULT_WEIGHTS;
+        int[] tuned = tuner.tune(start, 1);
+        for (int f = 0; f < Evaluator.NUM_FEATURES; f += 1) {
+            assertTrue(Math.abs(tuned[f] - start[f]) <= 1);
+        }
+        assertTrue(tuner.error(tuned) <= tuner.error(start));
+    }
+
+    /** Return a Board on which a game has been played to the end, each
+     *  move being chosen at random (using RANDOM) one time in three, and
+     *  otherwise being the one with the best static value for the side
+     *  making it. */
+    private static Board playGame(Random random) {
+        Board board = new Board();
+        while (!board.gameOver()) {
+            List<Move> moves = board.legalMoves();
+            Move best = moves.get(random.nextInt(moves.size()));
+            if (random.nextInt(3) != 0) {
+                Piece side = board.turn();
+                int bestValue = Integer.MIN_VALUE;
+                for (Move move : moves) {
+                    board.makeMove(move);
+                    int value = Evaluator.evaluate(board, side);
+                    board.retract();
+                    if (value > bestValue) {
+                        bestValue = value;
+                        best = move;
+                    }
+                }
+            }
+            board.makeMove(best);
+        }
+        return board;
+    }
+
+}
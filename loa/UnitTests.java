@@ -15,6 +15,13 @@ public class UnitTests {
     public static void main(String[] ignored) {
         textui.runClasses(UnitTests.class);
         textui.runClasses(BoardTest.class);
+        textui.runClasses(MachinePlayerTest.class);
+        textui.runClasses(TranspositionTableTest.class);
+        textui.runClasses(SearcherTest.class);
+        textui.runClasses(OpeningBookTest.class);
+        textui.runClasses(GameLogTest.class);
+        textui.runClasses(ThreatSearcherTest.class);
+        textui.runClasses(TunerTest.class);
     }
 
     /** A dummy test to avoid complaint. */